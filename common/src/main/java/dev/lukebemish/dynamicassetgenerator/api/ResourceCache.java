@@ -5,8 +5,12 @@
 
 package dev.lukebemish.dynamicassetgenerator.api;
 
+import dev.lukebemish.dynamicassetgenerator.impl.CacheManifest;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.PlanInterner;
 import dev.lukebemish.dynamicassetgenerator.impl.Timing;
+import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceDigests;
 import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceUtils;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.PackType;
@@ -91,31 +95,53 @@ public ResourceCache(ResourceLocation name) {
      * @return a map of all resources this pack can generate; calling this may resolve any given source cached to it
      */
     public Map<ResourceLocation, IoSupplier<InputStream>> getResources() {
+        Map<ResourceLocation, IoSupplier<InputStream>> manifested = CacheManifest.load(this);
+        if (manifested != null) {
+            return manifested;
+        }
+        CacheManifest.Builder manifest = CacheManifest.builder(this);
         Map<ResourceLocation, IoSupplier<InputStream>> outputs = new HashMap<>();
+        PlanInterner interner = PlanInterner.of(makeContext(false));
         this.cache.forEach(p-> {
             try {
-                PathAwareInputStreamSource source = p.get();
+                PathAwareInputStreamSource source = intern(interner, p.get());
                 Set<ResourceLocation> rls = source.getLocations(makeContext(false));
                 if (DynamicAssetGenerator.TIME_RESOURCES) {
                     rls.forEach(rl -> {
                         long startTime = System.nanoTime();
-                        outputs.put(rl, ResourceUtils.wrapSafeData(rl, source, makeContext(false)));
+                        outputs.put(rl, ResourceUtils.wrapSafeData(rl, source, makeContext(false), manifest));
                         long endTime = System.nanoTime();
 
                         long duration = (endTime - startTime)/1000;
                         Timing.recordPartialTime(this.getName().toString(), rl, duration);
                     });
                 } else {
-                    rls.forEach(rl -> outputs.put(rl, ResourceUtils.wrapSafeData(rl, source, makeContext(false))));
+                    rls.forEach(rl -> outputs.put(rl, ResourceUtils.wrapSafeData(rl, source, makeContext(false), manifest)));
                 }
             } catch (Throwable e) {
                 DynamicAssetGenerator.LOGGER.error("Issue setting up PathAwareInputStreamSource:",e);
+                if (manifest != null) {
+                    manifest.invalidate();
+                }
             }
         });
+        interner.report(getName());
+        if (manifest != null) {
+            manifest.complete(outputs.size());
+        }
 
         return outputs;
     }
 
+    private static PathAwareInputStreamSource intern(PlanInterner interner, PathAwareInputStreamSource source) {
+        if (source instanceof PlannedSource planned && planned.source() instanceof ResourceGenerator generator) {
+            return new PlannedSource(planned.locations(), interner.intern(ResourceGenerator.CODEC, generator));
+        } else if (source instanceof ResourceGenerator generator && !(source instanceof Resettable)) {
+            return interner.intern(ResourceGenerator.CODEC, generator);
+        }
+        return source;
+    }
+
     private ResourceGenerationContext.ResourceSource filteredSource = null;
 
     /**
@@ -156,6 +182,10 @@ public void planResetListener(Resettable listener) {
      */
     @SuppressWarnings("unused")
     public void reset(ResourceGenerationContext context) {
+        DigestJsonOps.clearMemo(context);
+        ResourceDigests.reset(context);
+        PlanInterner.reset(context);
+        CacheManifest.reset(this);
         this.resetListeners.forEach(r -> r.reset(context));
         this.filteredSource = ResourceGenerationContext.ResourceSource.filtered(this::allowAccess, getPackType());
     }
@@ -216,21 +246,23 @@ public void planSource(Supplier<? extends PathAwareInputStreamSource> source) {
 
 
     private static Supplier<PathAwareInputStreamSource> wrap(Supplier<Set<ResourceLocation>> rls, InputStreamSource source) {
-        return () -> new PathAwareInputStreamSource() {
-            @Override
-            public @NonNull Set<ResourceLocation> getLocations(ResourceGenerationContext context) {
-                return rls.get();
-            }
+        return () -> new PlannedSource(rls, source);
+    }
 
-            @Override
-            public IoSupplier<InputStream> get(ResourceLocation outRl, ResourceGenerationContext context) {
-                return source.get(outRl, context);
-            }
+    private record PlannedSource(Supplier<Set<ResourceLocation>> locations, InputStreamSource source) implements PathAwareInputStreamSource {
+        @Override
+        public @NonNull Set<ResourceLocation> getLocations(ResourceGenerationContext context) {
+            return locations.get();
+        }
 
-            @Override
-            public @Nullable String createCacheKey(ResourceLocation outRl, ResourceGenerationContext context) {
-                return source.createCacheKey(outRl, context);
-            }
-        };
+        @Override
+        public IoSupplier<InputStream> get(ResourceLocation outRl, ResourceGenerationContext context) {
+            return source.get(outRl, context);
+        }
+
+        @Override
+        public @Nullable String createCacheKey(ResourceLocation outRl, ResourceGenerationContext context) {
+            return source.createCacheKey(outRl, context);
+        }
     }
 }
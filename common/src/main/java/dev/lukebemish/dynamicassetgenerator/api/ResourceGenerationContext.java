@@ -5,11 +5,9 @@
 
 package dev.lukebemish.dynamicassetgenerator.api;
 
-import com.google.common.base.Suppliers;
 import dev.lukebemish.dynamicassetgenerator.impl.EmptyResourceSource;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceFinder;
-import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
-import dev.lukebemish.dynamicassetgenerator.impl.util.InvisibleProviderUtils;
+import dev.lukebemish.dynamicassetgenerator.impl.ResourceIndex;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.PackType;
@@ -116,8 +114,7 @@ static ResourceSource blind() {
          */
         static ResourceGenerationContext.ResourceSource filtered(Predicate<String> allowedPacks, PackType type) {
             int ordinal = type.ordinal();
-            Supplier<Stream<PackResources>> packs = () -> ResourceFinder.INSTANCES[ordinal].getPacks().filter(pack -> allowedPacks.test(pack.packId()));
-            return of(type, packs);
+            return ResourceIndex.source(type, () -> ResourceFinder.INSTANCES[ordinal].getPacks(), allowedPacks);
         }
 
         /**
@@ -129,8 +126,7 @@ static ResourceGenerationContext.ResourceSource filtered(Predicate<String> allow
          * @return a resource based on the supplied packs available when first invoked
          */
         static ResourceGenerationContext.ResourceSource filtered(Predicate<String> allowedPacks, PackType type, Supplier<Stream<PackResources>> packResources) {
-            Supplier<Stream<PackResources>> packs = () -> packResources.get().filter(pack -> allowedPacks.test(pack.packId()));
-            return of(type, packs);
+            return ResourceIndex.source(type, packResources, allowedPacks);
         }
 
         /**
@@ -191,80 +187,7 @@ public Map<ResourceLocation, List<IoSupplier<InputStream>>> listResourceStacks(@
          * @return a resource based on the supplied packs available when first invoked
          */
         static ResourceGenerationContext.ResourceSource of(PackType type, Supplier<Stream<PackResources>> resources) {
-            Supplier<List<PackResources>> packs = Suppliers.memoize(() -> Services.DEGROUPER.unpackPacks(Stream.concat(
-                resources.get(),
-                InvisibleProviderUtils.INVISIBLE_RESOURCE_PROVIDERS.stream().map(InvisibleProviderUtils::constructPlaceholderResourcesFromProvider)
-            )).toList());
-            return new ResourceGenerationContext.ResourceSource() {
-
-                @Override
-                public @Nullable IoSupplier<InputStream> getResource(@NonNull ResourceLocation location) {
-                    IoSupplier<InputStream> found = null;
-                    for (PackResources pack : packs.get()) {
-                        IoSupplier<InputStream> resource = pack.getResource(type, location);
-                        if (resource != null) {
-                            found = resource;
-                        }
-                    }
-                    return found;
-                }
-
-                @Override
-                public List<IoSupplier<InputStream>> getResourceStack(@NonNull ResourceLocation location) {
-                    List<IoSupplier<InputStream>> out = new ArrayList<>();
-                    for (PackResources pack : packs.get()) {
-                        IoSupplier<InputStream> resource = pack.getResource(type, location);
-                        if (resource != null) {
-                            out.add(resource);
-                        }
-                    }
-                    Collections.reverse(out);
-                    return out;
-                }
-
-                @Override
-                public Map<ResourceLocation, IoSupplier<InputStream>> listResources(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
-                    Map<ResourceLocation, IoSupplier<InputStream>> resources = new HashMap<>();
-                    for (PackResources pack : packs.get()) {
-                        for (String namespace : pack.getNamespaces(type)) {
-                            pack.listResources(type, namespace, path, (rl, s) -> {
-                                if (filter.test(rl)) {
-                                    resources.put(rl, s);
-                                }
-                            });
-                        }
-                    }
-                    return resources;
-                }
-
-                @Override
-                public Map<ResourceLocation, List<IoSupplier<InputStream>>> listResourceStacks(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
-                    Map<ResourceLocation, List<IoSupplier<InputStream>>> resources = new HashMap<>();
-                    for (PackResources pack : packs.get()) {
-                        for (String namespace : pack.getNamespaces(type)) {
-                            pack.listResources(type, namespace, path, (rl, s) -> {
-                                if (filter.test(rl)) {
-                                    List<IoSupplier<InputStream>> list = resources.computeIfAbsent(rl, location -> new ArrayList<>());
-                                    list.add(s);
-                                }
-                            });
-                        }
-                    }
-                    for (var list : resources.values()) {
-                        Collections.reverse(list);
-                    }
-                    return resources;
-                }
-
-                @Override
-                public @NonNull Set<String> getNamespaces() {
-                    Set<String> namespaces = new HashSet<>();
-                    for (PackResources pack : packs.get()) {
-                        namespaces.addAll(pack.getNamespaces(type));
-                    }
-                    return namespaces;
-                }
-            };
+            return ResourceIndex.source(type, resources, pack -> true);
         }
     }
 }
@@ -5,16 +5,14 @@
 
 package dev.lukebemish.dynamicassetgenerator.api;
 
-import com.google.gson.JsonElement;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
 import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaCodec;
-import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaJsonOps;
 import dev.lukebemish.dynamicassetgenerator.api.cache.DataConsumer;
 import dev.lukebemish.dynamicassetgenerator.impl.CommonRegisters;
-import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceCachingData;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.ExtraCodecs;
@@ -77,12 +75,12 @@ static void register(ResourceLocation rl, Codec<? extends ResourceGenerator> rea
     @Nullable
     @ApiStatus.NonExtendable
     default String createCacheKey(ResourceLocation outRl, ResourceGenerationContext context) {
-        CacheMetaJsonOps ops = new CacheMetaJsonOps();
+        DigestJsonOps ops = new DigestJsonOps(context);
         ops.putData(ResourceCachingData.class, new ResourceCachingData(outRl, context));
-        DataResult<JsonElement> result = CODEC.encodeStart(ops, this);
-        JsonElement element = result.result().orElse(null);
-        if (element != null) {
-            return DynamicAssetGenerator.GSON_FLAT.toJson(element);
+        DataResult<String> result = ops.digest(CODEC, this);
+        String digest = result.result().orElse(null);
+        if (digest != null) {
+            return digest;
         }
         return PathAwareInputStreamSource.super.createCacheKey(outRl, context);
     }
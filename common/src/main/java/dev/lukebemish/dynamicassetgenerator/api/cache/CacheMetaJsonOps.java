@@ -9,6 +9,7 @@
 import com.mojang.serialization.JsonOps;
 import org.jspecify.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +23,22 @@ public CacheMetaJsonOps() {
         super(false);
     }
 
+    /**
+     * Creates a new ops object holding the same data as the provided one.
+     * @param other the ops object to copy data from
+     */
+    protected CacheMetaJsonOps(CacheMetaJsonOps other) {
+        super(false);
+        map.putAll(other.map);
+    }
+
+    /**
+     * @return an unmodifiable snapshot of the data currently attached to this ops object
+     */
+    protected Map<Class<?>, Object> dataSnapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(map));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @Nullable
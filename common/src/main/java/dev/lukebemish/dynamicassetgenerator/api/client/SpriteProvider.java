@@ -12,16 +12,20 @@
 import com.mojang.serialization.MapCodec;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.TrackingResourceSource;
-import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaJsonOps;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TextureMetaGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.PlanInterner;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceCachingData;
 import dev.lukebemish.dynamicassetgenerator.impl.client.ForegroundExtractor;
+import dev.lukebemish.dynamicassetgenerator.impl.client.RawImageCodec;
 import dev.lukebemish.dynamicassetgenerator.impl.client.TexSourceCache;
 import dev.lukebemish.dynamicassetgenerator.impl.client.platform.ClientServices;
 import dev.lukebemish.dynamicassetgenerator.impl.mixin.SpriteSourcesAccessor;
+import dev.lukebemish.dynamicassetgenerator.impl.util.InputRecorder;
+import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceDigests;
 import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceUtils;
 import net.minecraft.client.renderer.texture.SpriteContents;
 import net.minecraft.client.renderer.texture.atlas.SpriteSource;
@@ -40,6 +44,7 @@
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -50,6 +55,10 @@
  */
 public interface SpriteProvider<T extends SpriteProvider<T>> {
     /**
+     * Provides the sources to generate sprites from. This is called once per run, on the calling thread. If
+     * {@link #prepareInParallel()} is enabled, the returned sources must be safe to call from several threads at once:
+     * they are encoded with their codecs and have {@link TexSource#getCachedSupplier} called concurrently, including
+     * equal sources at different locations.
      * @return a map of texture location, not including the {@code "textures/"} prefix or file extension, to texture source
      */
     Map<ResourceLocation, TexSource> getSources(ResourceGenerationContext context);
@@ -85,24 +94,31 @@ static <T extends SpriteProvider<T>> void register(ResourceLocation location, Su
     default void reset(ResourceGenerationContext context) {
         TexSourceCache.reset(context);
         ForegroundExtractor.reset(context);
+        ResourceDigests.reset(context);
+        PlanInterner.reset(context);
     }
 
     default void run(ResourceManager resourceManager, SpriteSource.Output output, ResourceLocation cacheName) {
         ResourceGenerationContext context = new ResourceGenerationContext() {
             private final ResourceSource source = ResourceGenerationContext.ResourceSource.filtered(pack -> true, PackType.CLIENT_RESOURCES, resourceManager::listPacks)
                 .fallback(new ResourceSource() {
+                    // Reads through the resource manager are not tracked, so outputs which read through it are
+                    // never reused across reloads
                     @Override
                     public @Nullable IoSupplier<InputStream> getResource(@NonNull ResourceLocation location) {
+                        InputRecorder.untracked();
                         return resourceManager.getResource(location).<IoSupplier<InputStream>>map(r -> r::open).orElse(null);
                     }
 
                     @Override
                     public List<IoSupplier<InputStream>> getResourceStack(@NonNull ResourceLocation location) {
+                        InputRecorder.untracked();
                         return resourceManager.getResourceStack(location).stream().<IoSupplier<InputStream>>map(r -> r::open).toList();
                     }
 
                     @Override
                     public Map<ResourceLocation, IoSupplier<InputStream>> listResources(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
+                        InputRecorder.untracked();
                         Map<ResourceLocation, IoSupplier<InputStream>> map = new HashMap<>();
                         resourceManager.listResources(path, filter).forEach((rl, r) -> map.put(rl, r::open));
                         return map;
@@ -110,6 +126,7 @@ public Map<ResourceLocation, IoSupplier<InputStream>> listResources(@NonNull Str
 
                     @Override
                     public Map<ResourceLocation, List<IoSupplier<InputStream>>> listResourceStacks(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
+                        InputRecorder.untracked();
                         Map<ResourceLocation, List<IoSupplier<InputStream>>> map = new HashMap<>();
                         resourceManager.listResourceStacks(path, filter).forEach((rl, r) -> map.put(rl, r.stream().<IoSupplier<InputStream>>map(i -> i::open).toList()));
                         return map;
@@ -134,75 +151,100 @@ public ResourceSource getResourceSource() {
 
         this.reset(context);
 
-        Map<ResourceLocation, TexSource> sources = getSources(context);
-
-        sources.forEach((rl, texSource) -> {
-            var trackingSource = TrackingResourceSource.of(context.getResourceSource(), "textures", ".png");
-            ResourceGenerationContext trackingContext = context.withResourceSource(trackingSource);
-            var dataHolder = new TexSourceDataHolder();
-            IoSupplier<NativeImage> imageSupplier = ResourceUtils.wrapSafeData(
-                new ResourceLocation(rl.getNamespace(), "textures/"+rl.getPath()+".png"),
-                (r, c) -> texSource.getCachedSupplier(dataHolder, c),
-                trackingContext,
-                im -> {
-                    try (var image = im) {
-                        return new ByteArrayInputStream(image.asByteArray());
-                    }
-                },
-                is -> {
-                    try (var input = is) {
-                        return NativeImage.read(input);
-                    }
-                },
-                (r, c) -> {
-                    CacheMetaJsonOps ops = new CacheMetaJsonOps();
-                    ops.putData(ResourceCachingData.class, new ResourceCachingData(r, c));
-                    return TexSource.CODEC.encodeStart(ops, texSource).result().map(DynamicAssetGenerator.GSON_FLAT::toJson).orElse(null);
+        PlanInterner interner = PlanInterner.of(context);
+        Map<ResourceLocation, TexSource> sources = new HashMap<>();
+        getSources(context).forEach((rl, texSource) -> sources.put(rl, interner.intern(TexSource.CODEC, texSource)));
+        interner.report(cacheName);
+
+        long startTime = System.nanoTime();
+        Map<ResourceLocation, Optional<JsonObject>> animationMetadata = new ConcurrentHashMap<>();
+        var entries = prepareInParallel() ? sources.entrySet().parallelStream() : sources.entrySet().stream();
+        List<Pair<ResourceLocation, SpriteSource.SpriteSupplier>> prepared = entries
+            .map(entry -> Pair.of(entry.getKey(), prepareSprite(entry.getKey(), entry.getValue(), context, animationMetadata)))
+            .toList();
+        prepared.forEach(pair -> output.add(pair.getFirst(), pair.getSecond()));
+        if (DynamicAssetGenerator.TIME_RESOURCES) {
+            DynamicAssetGenerator.LOGGER.info("Prepared {} sprites for {} {} in {} ms", prepared.size(), cacheName, prepareInParallel() ? "in parallel" : "serially", (System.nanoTime() - startTime) / 1_000_000);
+        }
+    }
+
+    /**
+     * Whether sprite suppliers, including cache key computation and disk cache lookups, should be prepared in parallel.
+     * Sources provided by {@link #getSources} must be safe to prepare concurrently if this is enabled; see there for
+     * what that covers. Preparation runs on the common fork-join pool, which is shared with other parallel work such as
+     * image processing, so it should not block on other work submitted to that pool.
+     * @return true to prepare sprites in parallel; defaults to the value in the config
+     */
+    @ApiStatus.Experimental
+    default boolean prepareInParallel() {
+        return DynamicAssetGenerator.getConfig().parallelSpritePreparation();
+    }
+
+    private SpriteSource.SpriteSupplier prepareSprite(ResourceLocation rl, TexSource texSource, ResourceGenerationContext context, Map<ResourceLocation, Optional<JsonObject>> animationMetadata) {
+        var trackingSource = TrackingResourceSource.of(context.getResourceSource(), "textures", ".png");
+        ResourceGenerationContext trackingContext = context.withResourceSource(trackingSource);
+        var dataHolder = new TexSourceDataHolder();
+        IoSupplier<NativeImage> imageSupplier = ResourceUtils.wrapSafeData(
+            new ResourceLocation(rl.getNamespace(), "textures/"+rl.getPath()+".png"),
+            (r, c) -> texSource.getCachedSupplier(dataHolder, c),
+            trackingContext,
+            im -> {
+                try (var image = im) {
+                    return new ByteArrayInputStream(RawImageCodec.encode(image));
                 }
-            );
-            output.add(rl, spriteResourceLoader -> {
-                try {
-                    if (imageSupplier == null) {
-                        throw new IOException("No image supplier");
+            },
+            RawImageCodec::read,
+            (r, c) -> {
+                DigestJsonOps ops = new DigestJsonOps(c);
+                ops.putData(ResourceCachingData.class, new ResourceCachingData(r, c));
+                return ops.digest(TexSource.CODEC, texSource).result().orElse(null);
+            }
+        );
+        return spriteResourceLoader -> {
+            try {
+                if (imageSupplier == null) {
+                    throw new IOException("No image supplier");
+                }
+                final NativeImage image = imageSupplier.get();
+                AnimationMetadataSection section = AnimationMetadataSection.EMPTY;
+                if (!trackingSource.getTouchedTextures().isEmpty()) {
+                    TextureMetaGenerator.AnimationGenerator generator = new TextureMetaGenerator.AnimationGenerator.Builder().build();
+                    List<Pair<ResourceLocation, JsonObject>> animations = new ArrayList<>();
+                    for (ResourceLocation touchedTexture : trackingSource.getTouchedTextures()) {
+                        JsonObject animation = animationMetadata.computeIfAbsent(touchedTexture, t -> readAnimation(context, t)).orElse(null);
+                        animations.add(new Pair<>(touchedTexture, animation));
                     }
-                    final NativeImage image = imageSupplier.get();
-                    AnimationMetadataSection section = AnimationMetadataSection.EMPTY;
-                    if (!trackingSource.getTouchedTextures().isEmpty()) {
-                        TextureMetaGenerator.AnimationGenerator generator = new TextureMetaGenerator.AnimationGenerator.Builder().build();
-                        List<Pair<ResourceLocation, JsonObject>> animations = new ArrayList<>();
-                        for (ResourceLocation touchedTexture : trackingSource.getTouchedTextures()) {
-                            var resource = context.getResourceSource().getResource(new ResourceLocation(touchedTexture.getNamespace(), "textures/"+touchedTexture.getPath()+".png.mcmeta"));
-                            if (resource == null) {
-                                animations.add(new Pair<>(touchedTexture, null));
-                                continue;
-                            }
-                            try (var reader = new BufferedReader(new InputStreamReader(resource.get()))) {
-                                JsonObject json = DynamicAssetGenerator.GSON.fromJson(reader, JsonObject.class);
-                                JsonObject animation = GsonHelper.getAsJsonObject(json, AnimationMetadataSection.SECTION_NAME);
-                                animations.add(new Pair<>(touchedTexture, animation));
-                            } catch (Exception ignored) {
-                                animations.add(new Pair<>(touchedTexture, null));
-                            }
-                        }
-                        JsonObject built = generator.apply(animations);
-                        if (built != null) {
-                            try {
-                                section = AnimationMetadataSection.SERIALIZER.fromJson(built);
-                            } catch (Exception ignored) {
-                            }
+                    JsonObject built = generator.apply(animations);
+                    if (built != null) {
+                        try {
+                            section = AnimationMetadataSection.SERIALIZER.fromJson(built);
+                        } catch (Exception ignored) {
                         }
                     }
-                    FrameSize frameSize = new FrameSize(image.getWidth(), image.getHeight());
-                    if (section != AnimationMetadataSection.EMPTY) {
-                        frameSize = section.calculateFrameSize(image.getWidth(), image.getHeight());
-                    }
-                    return new SpriteContents(rl, frameSize, image, new ResourceMetadata.Builder().put(AnimationMetadataSection.SERIALIZER, section).build());
-                } catch (IOException e) {
-                    DynamicAssetGenerator.LOGGER.error("Failed to generate texture for sprite source type "+getLocation()+" at "+rl+": ", e);
-                    return null;
                 }
-            });
-        });
+                FrameSize frameSize = new FrameSize(image.getWidth(), image.getHeight());
+                if (section != AnimationMetadataSection.EMPTY) {
+                    frameSize = section.calculateFrameSize(image.getWidth(), image.getHeight());
+                }
+                return new SpriteContents(rl, frameSize, image, new ResourceMetadata.Builder().put(AnimationMetadataSection.SERIALIZER, section).build());
+            } catch (IOException e) {
+                DynamicAssetGenerator.LOGGER.error("Failed to generate texture for sprite source type "+getLocation()+" at "+rl+": ", e);
+                return null;
+            }
+        };
+    }
+
+    private static Optional<JsonObject> readAnimation(ResourceGenerationContext context, ResourceLocation texture) {
+        var resource = context.getResourceSource().getResource(new ResourceLocation(texture.getNamespace(), "textures/"+texture.getPath()+".png.mcmeta"));
+        if (resource == null) {
+            return Optional.empty();
+        }
+        try (var reader = new BufferedReader(new InputStreamReader(resource.get()))) {
+            JsonObject json = DynamicAssetGenerator.GSON.fromJson(reader, JsonObject.class);
+            return Optional.of(GsonHelper.getAsJsonObject(json, AnimationMetadataSection.SECTION_NAME));
+        } catch (Exception ignored) {
+            return Optional.empty();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.client.generators;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
+import dev.lukebemish.dynamicassetgenerator.impl.client.PointwisePipeline;
+import net.minecraft.server.packs.resources.IoSupplier;
+import org.jetbrains.annotations.ApiStatus;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A {@link TexSource} whose texture is generated by applying a pointwise operation to a list of nested sources, scaled
+ * as by {@link ImageUtils#generateScaledImage}. Chains of such sources are fused into a single pass over the output
+ * texture, rather than each nested source generating a full intermediate texture; sources which are not pointwise are
+ * generated and cached as usual, and feed their textures into the fused pass. As a source may be fused into the source
+ * nesting it, its {@link #getSupplier} may be skipped entirely, so it must generate exactly the texture its kernel
+ * describes.
+ */
+@ApiStatus.Experimental
+public interface PointwiseTexSource extends TexSource {
+
+    /**
+     * Describes how this source generates its texture, or returns null if it cannot be generated. Like
+     * {@link #getSupplier}, should log the issue if null is returned.
+     * @param data context information passed by outer nesting texture sources
+     * @param context context about the environment the texture is generating in
+     * @return the kernel of this source, or null if the texture could not be produced
+     */
+    @Nullable Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context);
+
+    /**
+     * Generates the texture described by {@link #getKernel}, fusing any nested pointwise sources into a single pass.
+     * Should not be overridden.
+     */
+    @Override
+    default @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        return PointwisePipeline.supplier(this, data, context);
+    }
+
+    /**
+     * The operation a pointwise source applies, and the sources it is applied to.
+     * @param inputs the sources whose textures are passed to the operation, in order; a source may appear more than once
+     * @param operation the operation to apply; must expect as many images as there are inputs, or any number of images,
+     *                  and must be thread-safe
+     */
+    record Kernel(List<TexSource> inputs, IntPointwiseOperation operation) {
+        public Kernel {
+            inputs = List.copyOf(inputs);
+            if (operation.expectedImages() != inputs.size() && operation.expectedImages() != -1)
+                throw new IllegalArgumentException("Expected " + operation.expectedImages() + " images, got " + inputs.size());
+        }
+    }
+}
@@ -16,6 +16,8 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerator;
 import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaCodec;
 import dev.lukebemish.dynamicassetgenerator.api.cache.DataConsumer;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceCachingData;
 import dev.lukebemish.dynamicassetgenerator.impl.client.ClientRegisters;
@@ -33,7 +35,7 @@
 /**
  * Contains instructions for generating a single texture. Many implementations allow for nesting of further sources
  * within this; thus, to avoid the generation of duplicate sources, texture sources are cached, if possible, with their
- * key being their serialized form in JSON. If this information is not enough to uniquely identify the texture a source
+ * key being a digest of their serialized form, in which any nested sources are replaced by their own digests. If this information is not enough to uniquely identify the texture a source
  * will produce (for instance, if it uses information passed in a context), then a source should implement the caching
  * API as needed.
  */
@@ -41,7 +43,7 @@ public interface TexSource {
 
     @ApiStatus.Internal
     String METADATA_CACHE_KEY = "__dynamic_asset_generator_metadata";
-    Codec<TexSource> CODEC = CacheMetaCodec.of(ExtraCodecs.lazyInitializedCodec(() -> new Codec<Codec<? extends TexSource>>() {
+    Codec<TexSource> CODEC = DigestJsonOps.merkle(CacheMetaCodec.of(ExtraCodecs.lazyInitializedCodec(() -> new Codec<Codec<? extends TexSource>>() {
             @Override
             public <T> DataResult<Pair<Codec<? extends TexSource>, T>> decode(DynamicOps<T> ops, T input) {
                 return ResourceLocation.CODEC.decode(ops, input).flatMap(keyValuePair -> !ClientRegisters.TEXSOURCES.containsKey(keyValuePair.getFirst())
@@ -73,7 +75,7 @@ public <T1> DataResult<T1> encode(DynamicOps<T1> ops, ResourceCachingData data,
                 return object.persistentCacheData(ops, data.context());
             }
         }, ResourceGenerator.PERSISTENT_CACHE_KEY, ResourceCachingData.class))
-    );
+    ));
 
     /**
      * Register a new type of texture source, alongside a codec to decode from JSON and encode to a cache key.
@@ -134,16 +136,47 @@ default <T> DataResult<T> persistentCacheData(DynamicOps<T> ops, ResourceGenerat
     IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context);
 
     /**
-     * Delegates to {@link #getSupplier}, but caches the result if possible. Should be used instead of the non-cached
-     * version, but not extended.
+     * Provides a supplier for a shared, read-only handle to the texture this source will generate, or null if a texture
+     * cannot be provided. By default, wraps the result of {@link #getSupplier}; may be overridden by sources which
+     * can pass through handles from nested sources without copying. Should not be called; call
+     * {@link #getCachedHandleSupplier} instead to support caching.
+     * @param data context information passed by outer nesting texture sources
+     * @param context context about the environment the texture is generating in
+     * @return a supplier able to produce a handle to the texture, or null if the texture could not be produced.
+     */
+    @ApiStatus.OverrideOnly
+    @ApiStatus.Experimental
+    default @Nullable IoSupplier<ImageHandle> getHandleSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IoSupplier<NativeImage> supplier = this.getSupplier(data, context);
+        if (supplier == null) return null;
+        return () -> ImageHandle.of(supplier.get());
+    }
+
+    /**
+     * Delegates to {@link #getHandleSupplier}, but caches the result if possible. Sources which only read from a nested
+     * texture should use this instead of {@link #getCachedSupplier}, as the cached texture is shared instead of being
+     * copied; the provided handle must be closed once it is no longer needed. Should not be extended.
      */
     @ApiStatus.NonExtendable
-    default @Nullable IoSupplier<NativeImage> getCachedSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> wrapperImage = this.getSupplier(data, context);
+    @ApiStatus.Experimental
+    default @Nullable IoSupplier<ImageHandle> getCachedHandleSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IoSupplier<ImageHandle> wrapperImage = this.getHandleSupplier(data, context);
         if (wrapperImage == null) return null;
         return () -> TexSourceCache.fromCache(wrapperImage, this, context, data);
     }
 
+    /**
+     * Delegates to {@link #getSupplier}, but caches the result if possible. Should be used instead of the non-cached
+     * version, but not extended. The provided image is owned by the caller; if the texture is only read from, prefer
+     * {@link #getCachedHandleSupplier}.
+     */
+    @ApiStatus.NonExtendable
+    default @Nullable IoSupplier<NativeImage> getCachedSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IoSupplier<ImageHandle> handle = this.getCachedHandleSupplier(data, context);
+        if (handle == null) return null;
+        return () -> handle.get().toOwned();
+    }
+
     /**
      * @return a string representation of this texture source, meant for logging and debugging purposes. Should
      * <em>not</em> be used for serialization or caching. Can be safely overridden to provide whatever information
@@ -5,10 +5,13 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
@@ -61,6 +64,15 @@ public <T> T get(Token<T> token) {
         return (T) dataMap.get(token);
     }
 
+    /**
+     * @return an unmodifiable copy of the data currently stored in this holder, equal to the copy of any holder storing
+     * equal data under the same tokens
+     */
+    @ApiStatus.Internal
+    public Map<Token<?>, Object> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(dataMap));
+    }
+
     /**
      * @return the logger stored, or the default logger if none is stored
      */
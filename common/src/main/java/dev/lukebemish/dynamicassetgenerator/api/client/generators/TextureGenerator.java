@@ -12,7 +12,9 @@
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerator;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.client.PngEncoder;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
@@ -47,11 +49,12 @@ public TextureGenerator(@NonNull ResourceLocation outputLocation, @NonNull TexSo
 
     @Override
     public IoSupplier<InputStream> get(ResourceLocation outRl, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> imageGetter = this.input.getCachedSupplier(new TexSourceDataHolder(), context);
+        IoSupplier<ImageHandle> imageGetter = this.input.getCachedHandleSupplier(new TexSourceDataHolder(), context);
         if (imageGetter == null) return null;
         return () -> {
-            try (NativeImage image = imageGetter.get()) {
-                return new ByteArrayInputStream(image.asByteArray());
+            try (ImageHandle imageHandle = imageGetter.get()) {
+                NativeImage image = imageHandle.image();
+                return new ByteArrayInputStream(PngEncoder.encode(image));
             } catch (IOException e) {
                 DynamicAssetGenerator.LOGGER.error("Could not write image to stream for source {}: {}", input.stringify(), outRl, e);
                 throw e;
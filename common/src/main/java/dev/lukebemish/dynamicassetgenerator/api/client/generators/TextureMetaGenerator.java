@@ -17,6 +17,7 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerator;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceDigests;
 import net.minecraft.client.resources.metadata.animation.AnimationMetadataSection;
 import net.minecraft.client.resources.metadata.animation.VillagerMetaDataSection;
 import net.minecraft.resources.ResourceLocation;
@@ -96,10 +97,8 @@ public List<ResourceLocation> getSources() {
                 builder.add(ops.empty());
                 continue;
             }
-            try (var is = supplier.get()) {
-                byte[] bytes = is.readAllBytes();
-                String string = Base64.getEncoder().encodeToString(bytes);
-                builder.add(ops.createString(string));
+            try {
+                builder.add(ops.createString(ResourceDigests.digest(context, metaLocation, supplier)));
             } catch (IOException ignored) {
                 return DataResult.error(() -> "Cannot cache potentially erroring source");
             }
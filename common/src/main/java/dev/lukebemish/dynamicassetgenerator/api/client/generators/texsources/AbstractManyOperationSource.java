@@ -5,26 +5,23 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
-import dev.lukebemish.dynamicassetgenerator.impl.util.MultiCloser;
-import net.minecraft.server.packs.resources.IoSupplier;
-import org.jspecify.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
 /**
- * An abstract {@link TexSource} that is described by a {@link PointwiseOperation.Any}.
+ * An abstract {@link TexSource} that is described by a {@link PointwiseOperation.Any}, which may be fused with nested
+ * pointwise sources.
  */
-abstract public class AbstractManyOperationSource implements TexSource {
+abstract public class AbstractManyOperationSource implements PointwiseTexSource {
     private final List<TexSource> sources;
 
     public AbstractManyOperationSource(List<TexSource> sources) {
@@ -50,24 +47,7 @@ public static <T extends AbstractManyOperationSource> Codec<T> makeCodec(Functio
     }
 
     @Override
-    public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        List<IoSupplier<NativeImage>> inputs = new ArrayList<>();
-        for (TexSource o : this.getSources()) {
-            var source = o.getCachedSupplier(data, context);
-            if (source == null) {
-                data.getLogger().error("Texture given was nonexistent...\n{}",o.stringify());
-                return null;
-            }
-            inputs.add(source);
-        }
-        return () -> {
-            List<NativeImage> images = new ArrayList<>();
-            for (var input : inputs) {
-                images.add(input.get());
-            }
-            try (MultiCloser ignored = new MultiCloser(images)) {
-                return ImageUtils.generateScaledImage(getOperation(), images);
-            }
-        };
+    public Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context) {
+        return new Kernel(this.getSources(), IntPointwiseOperation.of(getOperation()));
     }
 }
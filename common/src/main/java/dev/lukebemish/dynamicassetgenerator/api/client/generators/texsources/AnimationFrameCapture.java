@@ -13,6 +13,7 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
 
@@ -39,13 +40,19 @@ private AnimationFrameCapture(String capture) {
 
     @Override
     public IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IoSupplier<ImageHandle> handle = getHandleSupplier(data, context);
+        return () -> handle.get().toOwned();
+    }
+
+    @Override
+    public @NonNull IoSupplier<ImageHandle> getHandleSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
         return () -> {
             AnimationSplittingSource.ImageCollection collection = data.get(AnimationSplittingSource.IMAGE_COLLECTION_TOKEN);
             if (collection == null) {
                 data.getLogger().debug("No parent animation source to capture...");
                 throw new IOException("No parent animation source to capture...");
             }
-            NativeImage image = collection.get(this.getCapture());
+            ImageHandle image = collection.get(this.getCapture());
             if (image == null) {
                 data.getLogger().debug("Key '{}' was not supplied to capture...", getCapture());
                 throw new IOException("Key '" + getCapture() + "' was not supplied to capture...");
@@ -11,6 +11,7 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import dev.lukebemish.dynamicassetgenerator.impl.util.Maath;
@@ -51,20 +52,22 @@ private AnimationSplittingSource(Map<String, TexSource> sources, TexSource gener
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        Map<String, IoSupplier<NativeImage>> sourcesMap = new HashMap<>();
+        Map<String, IoSupplier<ImageHandle>> sourcesMap = new HashMap<>();
         this.getSources().forEach((key, source) ->
-            sourcesMap.put(key, source.getCachedSupplier(data, context)));
+            sourcesMap.put(key, source.getCachedHandleSupplier(data, context)));
         if (sourcesMap.isEmpty()) {
             data.getLogger().error("No sources given...");
             return null;
         }
         return () -> {
-            Map<String, NativeImage> images = new HashMap<>();
-            for (Map.Entry<String, IoSupplier<NativeImage>> e : sourcesMap.entrySet()) {
-                String key = e.getKey();
-                images.put(key, e.getValue().get());
-            }
-            try (MultiCloser ignored = new MultiCloser(images.values())) {
+            Map<String, ImageHandle> handles = new HashMap<>();
+            try (MultiCloser ignored = new MultiCloser(handles.values())) {
+                for (Map.Entry<String, IoSupplier<ImageHandle>> e : sourcesMap.entrySet()) {
+                    String key = e.getKey();
+                    handles.put(key, e.getValue().get());
+                }
+                Map<String, NativeImage> images = new HashMap<>();
+                handles.forEach((key, handle) -> images.put(key, handle.image()));
                 List<NativeImage> imageList = images.values().stream().toList();
                 List<Integer> counts = images.values().stream().map(AnimationSplittingSource::getFrameCount).toList();
                 for (int i : counts) {
@@ -75,30 +78,32 @@ private AnimationSplittingSource(Map<String, TexSource> sources, TexSource gener
                 }
                 int lcm = Maath.lcm(counts);
                 int lcmWidth = Maath.lcm(imageList.stream().map(NativeImage::getWidth).toList());
-                NativeImage output = NativeImageHelper.of(NativeImage.Format.RGBA, lcmWidth, lcmWidth * lcm, false);
+                NativeImage output = NativeImageHelper.of(NativeImage.Format.RGBA, lcmWidth, lcmWidth * lcm);
                 for (int i = 0; i < lcm; i++) {
-                    Map<String, NativeImage> map = new HashMap<>();
+                    Map<String, ImageHandle> map = new HashMap<>();
                     int finalI = i;
-                    images.forEach((str, old) -> map.put(str, getPartialImage(old, finalI)));
+                    images.forEach((str, old) -> map.put(str, ImageHandle.of(getPartialImage(old, finalI))));
                     try (ImageCollection collection = new ImageCollection(map, this.getSources(), i)) {
                         TexSourceDataHolder newData = new TexSourceDataHolder(data);
                         newData.put(IMAGE_COLLECTION_TOKEN, collection);
-                        IoSupplier<NativeImage> supplier = generator.getCachedSupplier(newData, context);
+                        IoSupplier<ImageHandle> supplier = generator.getCachedHandleSupplier(newData, context);
                         if (supplier == null) {
                             data.getLogger().error("Generator created no image...");
                             throw new IOException("Generator created no image...");
                         }
-                        NativeImage supplied = supplier.get();
-                        int sWidth = supplied.getWidth();
-                        if (sWidth != supplied.getHeight()) {
-                            data.getLogger().error("Generator created non-square image...\n{}", generator.stringify());
-                            throw new IOException("Generator created non-square image...");
-                        }
-                        int scale = lcmWidth / sWidth;
-                        for (int x = 0; x < lcmWidth; x++) {
-                            for (int y = 0; y < lcmWidth; y++) {
-                                int color = ImageUtils.safeGetPixelABGR(supplied, x / scale, y / scale);
-                                output.setPixelRGBA(x, y + i * lcmWidth, color);
+                        try (ImageHandle suppliedHandle = supplier.get()) {
+                            NativeImage supplied = suppliedHandle.image();
+                            int sWidth = supplied.getWidth();
+                            if (sWidth != supplied.getHeight()) {
+                                data.getLogger().error("Generator created non-square image...\n{}", generator.stringify());
+                                throw new IOException("Generator created non-square image...");
+                            }
+                            int scale = lcmWidth / sWidth;
+                            for (int x = 0; x < lcmWidth; x++) {
+                                for (int y = 0; y < lcmWidth; y++) {
+                                    int color = ImageUtils.safeGetPixelABGR(supplied, x / scale, y / scale);
+                                    output.setPixelRGBA(x, y + i * lcmWidth, color);
+                                }
                             }
                         }
                     }
@@ -116,7 +121,7 @@ private static int getFrameCount(NativeImage image) {
     private static NativeImage getPartialImage(NativeImage input, int part) {
         int numFull = input.getHeight() / input.getWidth();
         int size = input.getWidth();
-        NativeImage output = NativeImageHelper.of(input.format(), size, size, false);
+        NativeImage output = NativeImageHelper.of(input.format(), size, size);
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
                 output.setPixelRGBA(x, y, ImageUtils.safeGetPixelABGR(input, x, (part % numFull) * size + y));
@@ -136,12 +141,12 @@ public TexSource getGenerator() {
 
     @ApiStatus.Internal
     static class ImageCollection implements Closeable {
-        private final Map<String, NativeImage> map;
+        private final Map<String, ImageHandle> map;
         private final Map<String, TexSource> original;
         private final int frame;
 
         @ApiStatus.Internal
-        private ImageCollection(Map<String, NativeImage> map, Map<String, TexSource> original, int frame) {
+        private ImageCollection(Map<String, ImageHandle> map, Map<String, TexSource> original, int frame) {
             this.map = new HashMap<>(map);
             this.original = original;
             this.frame = frame;
@@ -149,15 +154,13 @@ private ImageCollection(Map<String, NativeImage> map, Map<String, TexSource> ori
 
         @Override
         public void close() {
-            map.values().forEach(NativeImage::close);
+            map.values().forEach(ImageHandle::close);
         }
 
-        public NativeImage get(String key) throws IOException {
-            NativeImage input = map.get(key);
+        public ImageHandle get(String key) throws IOException {
+            ImageHandle input = map.get(key);
             if (input == null) throw new IOException("No image for key: " + key);
-            NativeImage newImage = new NativeImage(input.format(), input.getWidth(), input.getHeight(), false);
-            newImage.copyFrom(input);
-            return newImage;
+            return input.retain();
         }
 
         public int getFrame() {
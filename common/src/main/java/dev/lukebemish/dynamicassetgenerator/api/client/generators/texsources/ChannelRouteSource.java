@@ -5,18 +5,15 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Channel;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
-import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
-import dev.lukebemish.dynamicassetgenerator.impl.util.MultiCloser;
-import net.minecraft.server.packs.resources.IoSupplier;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
@@ -25,7 +22,7 @@
 /**
  * A source which routes information from several sources into different channels of an output image.
  */
-public class ChannelRouteSource implements TexSource {
+public class ChannelRouteSource implements PointwiseTexSource {
     public static final Codec<ChannelRouteSource> CODEC = RecordCodecBuilder.create(i -> i.group(
         Codec.unboundedMap(Codec.STRING, TexSource.CODEC).fieldOf("sources").forGetter(ChannelRouteSource::getSources),
         ChannelSource.CODEC.optionalFieldOf("red").forGetter(s -> Optional.ofNullable(s.getRed())),
@@ -114,65 +111,40 @@ public Map<String, TexSource> getSources() {
     }
 
     @Override
-    public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        Map<String, IoSupplier<NativeImage>> inputs = new HashMap<>();
-        for (Map.Entry<String, TexSource> entry : this.sources.entrySet()) {
-            IoSupplier<NativeImage> input = entry.getValue().getCachedSupplier(data, context);
-            if (input == null) {
-                data.getLogger().error("Texture given was nonexistent...\n{}", entry.getValue().stringify());
-                return null;
-            }
-            inputs.put(entry.getKey(), input);
-        }
-        if (red != null && !inputs.containsKey(red.getSource())) {
+    public @Nullable Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context) {
+        if (red != null && !sources.containsKey(red.getSource())) {
             data.getLogger().error("Red channel source given was nonexistent: {}", red.getSource());
             return null;
-        } else if (green != null && !inputs.containsKey(green.getSource())) {
+        } else if (green != null && !sources.containsKey(green.getSource())) {
             data.getLogger().error("Green channel source given was nonexistent: {}", green.getSource());
             return null;
-        } else if (blue != null && !inputs.containsKey(blue.getSource())) {
+        } else if (blue != null && !sources.containsKey(blue.getSource())) {
             data.getLogger().error("Blue channel source given was nonexistent: {}", blue.getSource());
             return null;
-        } else if (alpha != null && !inputs.containsKey(alpha.getSource())) {
+        } else if (alpha != null && !sources.containsKey(alpha.getSource())) {
             data.getLogger().error("Alpha channel source given was nonexistent: {}", alpha.getSource());
             return null;
         }
-        return () -> {
-            PointwiseOperation.Unary<Integer> rOperation = red == null ? null : red.getChannel().makeOperation();
-            PointwiseOperation.Unary<Integer> gOperation = green == null ? null : green.getChannel().makeOperation();
-            PointwiseOperation.Unary<Integer> bOperation = blue == null ? null : blue.getChannel().makeOperation();
-            PointwiseOperation.Unary<Integer> aOperation = alpha == null ? null : alpha.getChannel().makeOperation();
-
-            int running = 0;
-            int aIdx, rIdx, gIdx, bIdx;
-            if (alpha != null) aIdx = running++; else aIdx = -1;
-            if (red != null) rIdx = running++; else rIdx = -1;
-            if (green != null) gIdx = running++; else gIdx = -1;
-            if (blue != null) bIdx = running; else bIdx = -1;
-
-            PointwiseOperation.Any<Integer> operation = (cs, is) -> {
-                int aNew = aIdx == -1 ? 0xFF : aOperation.apply(cs[aIdx], is[aIdx]);
-                int rNew = rIdx == -1 ? 0 : rOperation.apply(cs[rIdx], is[rIdx]);
-                int gNew = gIdx == -1 ? 0 : gOperation.apply(cs[gIdx], is[gIdx]);
-                int bNew = bIdx == -1 ? 0 : bOperation.apply(cs[bIdx], is[bIdx]);
-                return ColorTypes.ARGB32.color(aNew, rNew, gNew, bNew);
-            };
-
-            var aImg = alpha == null ? null : inputs.get(alpha.getSource()).get();
-            var rImg = red == null ? null : inputs.get(red.getSource()).get();
-            var gImg = green == null ? null : inputs.get(green.getSource()).get();
-            var bImg = blue == null ? null : inputs.get(blue.getSource()).get();
-
-            var images = new ArrayList<NativeImage>();
-            if (aImg != null) images.add(aImg);
-            if (rImg != null) images.add(rImg);
-            if (gImg != null) images.add(gImg);
-            if (bImg != null) images.add(bImg);
-
-            try (MultiCloser ignored = new MultiCloser(images)) {
-                return ImageUtils.generateScaledImage(operation, images);
-            }
+        IntPointwiseOperation.Unary rOperation = red == null ? null : IntPointwiseOperation.Unary.of(red.getChannel().makeOperation());
+        IntPointwiseOperation.Unary gOperation = green == null ? null : IntPointwiseOperation.Unary.of(green.getChannel().makeOperation());
+        IntPointwiseOperation.Unary bOperation = blue == null ? null : IntPointwiseOperation.Unary.of(blue.getChannel().makeOperation());
+        IntPointwiseOperation.Unary aOperation = alpha == null ? null : IntPointwiseOperation.Unary.of(alpha.getChannel().makeOperation());
+
+        List<TexSource> inputs = new ArrayList<>();
+        int aIdx, rIdx, gIdx, bIdx;
+        if (alpha != null) { aIdx = inputs.size(); inputs.add(sources.get(alpha.getSource())); } else aIdx = -1;
+        if (red != null) { rIdx = inputs.size(); inputs.add(sources.get(red.getSource())); } else rIdx = -1;
+        if (green != null) { gIdx = inputs.size(); inputs.add(sources.get(green.getSource())); } else gIdx = -1;
+        if (blue != null) { bIdx = inputs.size(); inputs.add(sources.get(blue.getSource())); } else bIdx = -1;
+
+        IntPointwiseOperation.Any operation = (cs, is) -> {
+            int aNew = aIdx == -1 ? 0xFF : aOperation.applyAsInt(cs[aIdx], is[aIdx]);
+            int rNew = rIdx == -1 ? 0 : rOperation.applyAsInt(cs[rIdx], is[rIdx]);
+            int gNew = gIdx == -1 ? 0 : gOperation.applyAsInt(cs[gIdx], is[gIdx]);
+            int bNew = bIdx == -1 ? 0 : bOperation.applyAsInt(cs[bIdx], is[bIdx]);
+            return ColorTypes.ARGB32.color(aNew, rNew, gNew, bNew);
         };
+        return new Kernel(inputs, operation);
     }
 
     public @Nullable ChannelSource getAlpha() {
@@ -62,7 +62,7 @@ public IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGen
                     break;
                 }
             }
-            NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, sideLength, sideLength, false);
+            NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, sideLength, sideLength);
             outer:
             for (int y = 0; y < sideLength; y++) {
                 for (int x = 0; x < sideLength; x++) {
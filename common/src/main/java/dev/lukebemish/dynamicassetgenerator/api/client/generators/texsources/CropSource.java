@@ -11,7 +11,8 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
@@ -54,7 +55,7 @@ private CropSource(int totalSize, int startX, int sizeX, int startY, int sizeY,
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> suppliedInput = getInput().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> suppliedInput = getInput().getCachedHandleSupplier(data, context);
         if (suppliedInput == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", getInput().stringify());
             return null;
@@ -68,7 +69,8 @@ private CropSource(int totalSize, int startX, int sizeX, int startY, int sizeY,
             return null;
         }
         return () -> {
-            try (NativeImage inImg = suppliedInput.get()) {
+            try (ImageHandle inHandle = suppliedInput.get()) {
+                NativeImage inImg = inHandle.image();
                 int scale = inImg.getWidth() / getTotalSize();
 
                 if (scale == 0) {
@@ -84,11 +86,21 @@ private CropSource(int totalSize, int startX, int sizeX, int startY, int sizeY,
                     throw new IOException("Bounds of image are non-positive! " + getSizeX() + ", " + getSizeY());
                 }
 
-                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, distX, distY, false);
-                for (int x = 0; x < distX; x++) {
-                    for (int y = 0; y < distY; y++) {
-                        int c = ImageUtils.safeGetPixelABGR(inImg, (x + getStartX() * scale), (y + getStartY() * scale));
-                        out.setPixelRGBA(x, y, c);
+                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, distX, distY);
+                ImageRaster inRaster = ImageRaster.of(inImg);
+                ImageRaster outRaster = ImageRaster.of(out);
+                int offsetX = getStartX() * scale;
+                int offsetY = getStartY() * scale;
+                // Only the part of each row overlapping the input is copied; the rest stays transparent
+                int fromX = Math.max(0, -offsetX);
+                int toX = Math.min(distX, inImg.getWidth() - offsetX);
+                int fromY = Math.max(0, -offsetY);
+                int toY = Math.min(distY, inImg.getHeight() - offsetY);
+                if (fromX < toX) {
+                    int[] row = new int[distX];
+                    for (int y = fromY; y < toY; y++) {
+                        inRaster.readRowABGR(y + offsetY, fromX + offsetX, toX - fromX, row, fromX);
+                        outRaster.writeRowABGR(y, row);
                     }
                 }
                 return out;
@@ -11,6 +11,7 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -41,10 +42,17 @@ private FallbackSource(TexSource original, TexSource fallback) {
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IoSupplier<ImageHandle> handle = getHandleSupplier(data, context);
+        if (handle == null) return null;
+        return () -> handle.get().toOwned();
+    }
+
+    @Override
+    public @Nullable IoSupplier<ImageHandle> getHandleSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
         TexSourceDataHolder newData = new TexSourceDataHolder(data);
         newData.put(TexSourceDataHolder.LOGGER_TOKEN, NOPLogger.NOP_LOGGER);
-        IoSupplier<NativeImage> original = this.getOriginal().getCachedSupplier(newData, context);
-        IoSupplier<NativeImage> fallback = this.getFallback().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> original = this.getOriginal().getCachedHandleSupplier(newData, context);
+        IoSupplier<ImageHandle> fallback = this.getFallback().getCachedHandleSupplier(data, context);
 
         if (original == null && fallback == null) {
             data.getLogger().error("Both textures given were nonexistent...");
@@ -10,11 +10,11 @@
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
-import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaJsonOps;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
-import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.client.ForegroundExtractor;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
@@ -72,9 +72,9 @@ private ForegroundTransferSource(TexSource background, TexSource full, TexSource
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> background = this.getBackground().getCachedSupplier(data, context);
-        IoSupplier<NativeImage> newBackground = this.getNewBackground().getCachedSupplier(data, context);
-        IoSupplier<NativeImage> full = this.getFull().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> background = this.getBackground().getCachedHandleSupplier(data, context);
+        IoSupplier<ImageHandle> newBackground = this.getNewBackground().getCachedHandleSupplier(data, context);
+        IoSupplier<ImageHandle> full = this.getFull().getCachedHandleSupplier(data, context);
 
         if (background == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.getBackground().stringify());
@@ -91,10 +91,10 @@ private ForegroundTransferSource(TexSource background, TexSource full, TexSource
 
         final DataResult<String> cacheKey;
         DataResult<String> cacheKey1;
-        var dataOps = new CacheMetaJsonOps();
+        var dataOps = new DigestJsonOps(context);
         dataOps.putData(TexSourceDataHolder.class, data);
-        DataResult<String> cacheKeyBackground = TexSource.CODEC.encodeStart(dataOps, getBackground()).map(DynamicAssetGenerator.GSON_FLAT::toJson);
-        DataResult<String> cacheKeyFull = TexSource.CODEC.encodeStart(dataOps, getFull()).map(DynamicAssetGenerator.GSON_FLAT::toJson);
+        DataResult<String> cacheKeyBackground = dataOps.digest(TexSource.CODEC, getBackground());
+        DataResult<String> cacheKeyFull = dataOps.digest(TexSource.CODEC, getFull());
         if (cacheKeyBackground.result().isPresent() && cacheKeyFull.result().isPresent())
             cacheKey1 = DataResult.success(cacheKeyBackground.result().get() + "," + cacheKeyFull.result().get() + "," + extendPaletteSize + "," + trimTrailing + "," + forceNeighbors + "," + fillHoles + "," + closeCutoff);
         else if (cacheKeyBackground.error().isPresent())
@@ -104,18 +104,15 @@ else if (cacheKeyBackground.error().isPresent())
         cacheKey = cacheKey1;
 
         return () -> {
-            try (NativeImage bImg = background.get();
-                 NativeImage nImg = newBackground.get();
-                 NativeImage fImg = full.get()) {
+            try (ImageHandle bImg = background.get();
+                 ImageHandle nImg = newBackground.get();
+                 ImageHandle fImg = full.get()) {
 
                 Predicate<Palette> extend = p -> p.size() >= extendPaletteSize;
-                try (ForegroundExtractor extractor = new ForegroundExtractor(context.getCacheName(), cacheKey, bImg, fImg, extend, this.isTrimTrailing(), this.isForceNeighbors(), this.getCloseCutoff()).fillHoles(this.isFillHoles())) {
+                try (ForegroundExtractor extractor = new ForegroundExtractor(context.getCacheName(), cacheKey, bImg.image(), fImg.image(), extend, this.isTrimTrailing(), this.isForceNeighbors(), this.getCloseCutoff()).fillHoles(this.isFillHoles())) {
                     var options = new PaletteCombinedSource.PaletteCombiningOptions(extend, false, true);
                     extractor.unCacheOrReCalc();
-                    try (NativeImage pImg = extractor.getPalettedImg();
-                         NativeImage oImg = extractor.getOverlayImg()) {
-                        return PaletteCombinedSource.combineImages(nImg, oImg, pImg, options);
-                    }
+                    return PaletteCombinedSource.combineImages(nImg.image(), extractor.getOverlayImg(), extractor.getPalettedImg(), options);
                 }
             }
         };
@@ -5,17 +5,15 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.ColorOperations;
-import net.minecraft.server.packs.resources.IoSupplier;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import org.jspecify.annotations.NonNull;
-import org.jspecify.annotations.Nullable;
 
 import java.util.List;
 import java.util.Objects;
@@ -25,7 +23,7 @@
  * provided mask. The sources in {@link dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources.mask} may
  * be useful for creating masks.
  */
-public final class MaskSource implements TexSource {
+public final class MaskSource implements PointwiseTexSource {
     public static final Codec<MaskSource> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             TexSource.CODEC.fieldOf("input").forGetter(MaskSource::getInput),
             TexSource.CODEC.fieldOf("mask").forGetter(MaskSource::getMask)
@@ -44,26 +42,8 @@ private MaskSource(TexSource input, TexSource mask) {
     }
 
     @Override
-    public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.getInput().getCachedSupplier(data, context);
-        IoSupplier<NativeImage> mask = this.getMask().getCachedSupplier(data, context);
-
-        if (input == null) {
-            data.getLogger().error("Texture given was nonexistent...\n{}", this.getMask().stringify());
-            return null;
-        }
-        if (mask == null) {
-            data.getLogger().error("Texture given was nonexistent...\n{}", this.getInput().stringify());
-            return null;
-        }
-
-        return () -> {
-            try (NativeImage inImg = input.get();
-                 NativeImage maskImg = mask.get()) {
-
-                return ImageUtils.generateScaledImage(ColorOperations.MASK, List.of(inImg, maskImg));
-            }
-        };
+    public Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context) {
+        return new Kernel(List.of(this.getInput(), this.getMask()), IntPointwiseOperation.of(ColorOperations.MASK));
     }
 
     public TexSource getInput() {
@@ -11,9 +11,13 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
+import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.ColorOperations;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PaletteToColorOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
 import net.minecraft.server.packs.resources.IoSupplier;
@@ -64,9 +68,9 @@ private PaletteCombinedSource(TexSource overlay, TexSource background, TexSource
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        var backgroundSupplier = this.background.getCachedSupplier(data, context);
-        var overlaySupplier = this.overlay.getCachedSupplier(data, context);
-        var palettedSupplier = this.paletted.getCachedSupplier(data, context);
+        var backgroundSupplier = this.background.getCachedHandleSupplier(data, context);
+        var overlaySupplier = this.overlay.getCachedHandleSupplier(data, context);
+        var palettedSupplier = this.paletted.getCachedHandleSupplier(data, context);
         if (backgroundSupplier == null) {
             data.getLogger().error("Background image was none... \n{}", background.stringify());
             return null;
@@ -80,11 +84,11 @@ private PaletteCombinedSource(TexSource overlay, TexSource background, TexSource
             return null;
         }
         return () -> {
-            try (NativeImage bImg = backgroundSupplier.get();
-                 NativeImage oImg = overlaySupplier.get();
-                 NativeImage pImg = palettedSupplier.get()) {
+            try (ImageHandle bImg = backgroundSupplier.get();
+                 ImageHandle oImg = overlaySupplier.get();
+                 ImageHandle pImg = palettedSupplier.get()) {
 
-                return combineImages(bImg, oImg, pImg, new PaletteCombiningOptions(palette -> palette.size() >= extendPaletteSize, stretchPaletted, includeBackground));
+                return combineImages(bImg.image(), oImg.image(), pImg.image(), new PaletteCombiningOptions(palette -> palette.size() >= extendPaletteSize, stretchPaletted, includeBackground));
             }
         };
     }
@@ -93,19 +97,16 @@ private PaletteCombinedSource(TexSource overlay, TexSource background, TexSource
     public static NativeImage combineImages(NativeImage backgroundImage, NativeImage overlayImage, NativeImage paletteImage, PaletteCombiningOptions options) {
         Palette palette = ImageUtils.getPalette(backgroundImage);
         palette.extend(options.palettePredicate());
-        final PointwiseOperation.Unary<Integer> stretcher;
+        final IntPointwiseOperation.Unary stretcher;
         if (options.stretchPaletted()) {
             int min = 0xFF;
             int max = 0x00;
-            for (int i = 0; i < paletteImage.getWidth(); i++) {
-                for (int j = 0; j < paletteImage.getHeight(); j++) {
-                    int color = paletteImage.getPixelRGBA(i, j);
-                    int value = (FastColor.ABGR32.red(color) + FastColor.ABGR32.green(color) + FastColor.ABGR32.blue(color)) / 3;
-                    if (value < min)
-                        min = value;
-                    if (value > max)
-                        max = value;
-                }
+            for (int color : ImageRaster.of(paletteImage).getPixelsABGR()) {
+                int value = (FastColor.ABGR32.red(color) + FastColor.ABGR32.green(color) + FastColor.ABGR32.blue(color)) / 3;
+                if (value < min)
+                    min = value;
+                if (value > max)
+                    max = value;
             }
             int finalMax = max;
             int finalMin = min;
@@ -124,8 +125,8 @@ public static NativeImage combineImages(NativeImage backgroundImage, NativeImage
     }
 
     @NonNull
-    private static PointwiseOperation<Integer> createCombiningOperation(PaletteCombiningOptions options, Palette palette, PointwiseOperation.Unary<Integer> stretcher) {
-        final PointwiseOperation.Unary<Integer> paletteResolver = new PaletteToColorOperation(palette);
+    private static PointwiseOperation<Integer> createCombiningOperation(PaletteCombiningOptions options, Palette palette, IntPointwiseOperation.Unary stretcher) {
+        final IntPointwiseOperation.Unary paletteResolver = new PaletteToColorOperation(palette);
 
         final PointwiseOperation<Integer> operation;
 
@@ -136,29 +137,32 @@ private static PointwiseOperation<Integer> createCombiningOperation(PaletteCombi
                                                                backgroundInBounds,
                                                                overlayInBounds,
                                                                palettedInBounds) -> {
-                paletted1 = stretcher.apply(paletted1, palettedInBounds);
-
-                int resolvedPalette = paletteResolver.apply(paletted1, palettedInBounds);
-                int[] toOverlay = new int[]{overlay1, resolvedPalette, background1};
-                boolean[] toOverlayInBounds = new boolean[]{overlayInBounds, palettedInBounds, backgroundInBounds};
-                return ColorOperations.OVERLAY.apply(toOverlay, toOverlayInBounds);
+                int color = combine(overlay1, paletted1, overlayInBounds, palettedInBounds, stretcher, paletteResolver);
+                return backgroundInBounds ? ColorTypes.ARGB32.alphaBlend(color, background1) : color;
             };
         } else {
-            operation = (PointwiseOperation.Binary<Integer>) (overlay1,
-                                                              paletted1,
-                                                              overlayInBounds,
-                                                              palettedInBounds) -> {
-                paletted1 = stretcher.apply(paletted1, palettedInBounds);
-
-                int resolvedPalette = paletteResolver.apply(paletted1, palettedInBounds);
-                int[] toOverlay = new int[]{overlay1, resolvedPalette};
-                boolean[] toOverlayInBounds = new boolean[]{overlayInBounds, palettedInBounds};
-                return ColorOperations.OVERLAY.apply(toOverlay, toOverlayInBounds);
-            };
+            operation = (IntPointwiseOperation.Binary) (overlay1,
+                                                        paletted1,
+                                                        overlayInBounds,
+                                                        palettedInBounds) ->
+                combine(overlay1, paletted1, overlayInBounds, palettedInBounds, stretcher, paletteResolver);
         }
         return operation;
     }
 
+    /**
+     * Equivalent to {@link ColorOperations#OVERLAY} applied to the overlay and resolved palette colors, without
+     * allocating arrays to pass them in.
+     */
+    private static int combine(int overlay, int paletted, boolean overlayInBounds, boolean palettedInBounds, IntPointwiseOperation.Unary stretcher, IntPointwiseOperation.Unary paletteResolver) {
+        int color = overlayInBounds ? ColorTypes.ARGB32.alphaBlend(0, overlay) : 0;
+        if (palettedInBounds) {
+            int resolvedPalette = paletteResolver.applyAsInt(stretcher.applyAsInt(paletted, true), true);
+            color = ColorTypes.ARGB32.alphaBlend(color, resolvedPalette);
+        }
+        return color;
+    }
+
     public TexSource getOverlay() {
         return overlay;
     }
@@ -11,10 +11,11 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
-import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.util.FastColor;
 import org.jetbrains.annotations.ApiStatus;
@@ -50,15 +51,16 @@ private PaletteSpreadSource(TexSource source, double paletteCutoff) {
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> source = getSource().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> source = getSource().getCachedHandleSupplier(data, context);
         if (source == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.getSource().stringify());
             return null;
         }
         return () -> {
-            try (NativeImage image = source.get()) {
+            try (ImageHandle imageHandle = source.get()) {
+                NativeImage image = imageHandle.image();
                 var palette = ImageUtils.getPalette(image, this.getPaletteCutoff());
-                PointwiseOperation.Unary<Integer> operation = (c, i) -> {
+                IntPointwiseOperation.Unary operation = (c, i) -> {
                     if (!i) return 0;
                     var alpha = ColorTypes.ARGB32.alpha(c);
                     int sample = palette.getSample(c);
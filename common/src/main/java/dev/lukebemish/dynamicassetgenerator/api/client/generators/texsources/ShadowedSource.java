@@ -11,9 +11,13 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
+import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
+import dev.lukebemish.dynamicassetgenerator.impl.util.RowBands;
 import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.util.FastColor;
 import org.jspecify.annotations.NonNull;
@@ -21,7 +25,6 @@
 
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
 
 /**
  * A {@link TexSource} that overlays one image on top of another, adding a directional shadow around the edges of the
@@ -71,8 +74,8 @@ private ShadowedSource(TexSource background, TexSource foreground, int extendPal
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> background = this.getBackground().getCachedSupplier(data, context);
-        IoSupplier<NativeImage> foreground = this.getForeground().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> background = this.getBackground().getCachedHandleSupplier(data, context);
+        IoSupplier<ImageHandle> foreground = this.getForeground().getCachedHandleSupplier(data, context);
 
         if (background == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.getBackground().stringify());
@@ -84,28 +87,37 @@ private ShadowedSource(TexSource background, TexSource foreground, int extendPal
         }
 
         return () -> {
-            try (NativeImage backgroundImage = background.get();
-                 NativeImage foregroundImage = foreground.get()) {
+            try (ImageHandle backgroundHandle = background.get();
+                 ImageHandle foregroundHandle = foreground.get()) {
+                NativeImage backgroundImage = backgroundHandle.image();
+                NativeImage foregroundImage = foregroundHandle.image();
                 var size = ImageUtils.calculateScaledSize(List.of(backgroundImage, foregroundImage));
                 int bScale = size.getFirst() / backgroundImage.getWidth();
                 int fScale = size.getFirst() / foregroundImage.getWidth();
-                var image = new NativeImage(size.getFirst(), size.getSecond(), false);
+                int width = size.getFirst();
+                int height = size.getSecond();
+                int bWidth = backgroundImage.getWidth();
+                int bHeight = backgroundImage.getHeight();
+                int fWidth = foregroundImage.getWidth();
+                int fHeight = foregroundImage.getHeight();
+                int[] backgroundPixels = ImageRaster.of(backgroundImage).getPixels();
+                int[] foregroundPixels = ImageRaster.of(foregroundImage).getPixels();
+                int[] out = new int[width * height];
                 Palette palette = ImageUtils.getPalette(backgroundImage);
                 palette.extendToSize(this.getExtendPaletteSize());
-                IntStream.range(0, size.getFirst()).parallel().forEach(x -> {
-                    for (int y = 0; y < size.getSecond(); y++) {
-                        ImageUtils.safeSetPixelABGR(image, x, y, 0);
+                RowBands.forEachRow(width, height, y -> {
+                    for (int x = 0; x < width; x++) {
                         boolean high = false;
                         boolean low = false;
 
                         for (int i = 0; i < LOW_X.length; i++) {
-                            if (FastColor.ABGR32.alpha(ImageUtils.safeGetPixelABGR(foregroundImage, (x + LOW_X[i])/fScale, (y + LOW_Y[i])/fScale)) >= 128) {
+                            if (FastColor.ARGB32.alpha(sample(foregroundPixels, fWidth, fHeight, (x + LOW_X[i])/fScale, (y + LOW_Y[i])/fScale)) >= 128) {
                                 low = true;
                                 break;
                             }
                         }
                         for (int i = 0; i < HIGH_X.length; i++) {
-                            if (FastColor.ABGR32.alpha(ImageUtils.safeGetPixelABGR(foregroundImage, (x + HIGH_X[i])/fScale, (y + HIGH_Y[i])/fScale)) >= 128) {
+                            if (FastColor.ARGB32.alpha(sample(foregroundPixels, fWidth, fHeight, (x + HIGH_X[i])/fScale, (y + HIGH_Y[i])/fScale)) >= 128) {
                                 high = true;
                                 break;
                             }
@@ -116,8 +128,8 @@ private ShadowedSource(TexSource background, TexSource foreground, int extendPal
                             low = false;
                         }
 
-                        int oldBackground = ImageUtils.safeGetPixelARGB(backgroundImage, x/bScale, y/bScale);
-                        int oldForeground = ImageUtils.safeGetPixelARGB(foregroundImage, x/fScale, y/fScale);
+                        int oldBackground = sample(backgroundPixels, bWidth, bHeight, x/bScale, y/bScale);
+                        int oldForeground = sample(foregroundPixels, fWidth, fHeight, x/fScale, y/fScale);
 
                         if (high || low) {
                             int sample = palette.getSample(oldBackground);
@@ -131,12 +143,14 @@ private ShadowedSource(TexSource background, TexSource foreground, int extendPal
                             sample = ColorTypes.clamp8(sample);
 
                             int newColor = palette.getColor(sample) | (oldBackground & 0xFF000000);
-                            ImageUtils.safeSetPixelARGB(image, x, y, ColorTypes.ARGB32.alphaBlend(oldForeground, newColor));
+                            out[y * width + x] = ColorTypes.ARGB32.alphaBlend(oldForeground, newColor);
                         } else {
-                            ImageUtils.safeSetPixelARGB(image, x, y, ColorTypes.ARGB32.alphaBlend(oldForeground, oldBackground));
+                            out[y * width + x] = ColorTypes.ARGB32.alphaBlend(oldForeground, oldBackground);
                         }
                     }
                 });
+                var image = NativeImageHelper.allocate(NativeImage.Format.RGBA, width, height);
+                ImageRaster.of(image).setPixels(out);
                 return image;
             }
         };
@@ -162,6 +176,13 @@ public TexSource getForeground() {
         return foreground;
     }
 
+    private static int sample(int[] pixels, int width, int height, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        return pixels[y * width + x];
+    }
+
     public TexSource getBackground() {
         return background;
     }
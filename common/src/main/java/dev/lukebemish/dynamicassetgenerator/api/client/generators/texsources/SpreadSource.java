@@ -13,9 +13,11 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
-import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.util.FastColor;
 import org.jetbrains.annotations.ApiStatus;
@@ -113,36 +115,34 @@ private static int mapToRange(float value, List<Range> ranges) {
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> source = getSource().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> source = getSource().getCachedHandleSupplier(data, context);
         if (source == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.getSource().stringify());
             return null;
         }
         return () -> {
-            try (NativeImage paletteImage = source.get()) {
+            try (ImageHandle paletteImageHandle = source.get()) {
+                NativeImage paletteImage = paletteImageHandle.image();
                 int min = 0xFF;
                 int max = 0x00;
-                for (int i = 0; i < paletteImage.getWidth(); i++) {
-                    for (int j = 0; j < paletteImage.getHeight(); j++) {
-                        int color = paletteImage.getPixelRGBA(i, j);
-                        int alpha = FastColor.ABGR32.alpha(color);
-                        if (alpha != 0) {
-                            int value = (FastColor.ABGR32.red(color) + FastColor.ABGR32.green(color) + FastColor.ABGR32.blue(color)) / 3;
-                            if (value < min)
-                                min = value;
-                            if (value > max)
-                                max = value;
-                        }
+                for (int color : ImageRaster.of(paletteImage).getPixelsABGR()) {
+                    int alpha = FastColor.ABGR32.alpha(color);
+                    if (alpha != 0) {
+                        int value = (FastColor.ABGR32.red(color) + FastColor.ABGR32.green(color) + FastColor.ABGR32.blue(color)) / 3;
+                        if (value < min)
+                            min = value;
+                        if (value > max)
+                            max = value;
                     }
                 }
-                PointwiseOperation.Unary<Integer> operation = createSpreadingOperation(max, min);
+                IntPointwiseOperation.Unary operation = createSpreadingOperation(max, min);
 
                 return ImageUtils.generateScaledImage(operation, List.of(paletteImage));
             }
         };
     }
 
-    private PointwiseOperation.@NonNull Unary<Integer> createSpreadingOperation(int max, int min) {
+    private IntPointwiseOperation.@NonNull Unary createSpreadingOperation(int max, int min) {
         return (color, isInBounds) -> {
             int value = (FastColor.ARGB32.red(color) + FastColor.ARGB32.green(color) + FastColor.ARGB32.blue(color)) / 3;
             float stretched = (value - min) * 255f / (max - min);
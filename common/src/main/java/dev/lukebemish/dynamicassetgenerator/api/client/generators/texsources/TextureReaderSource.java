@@ -13,12 +13,12 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceDigests;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
 
 import java.io.IOException;
-import java.util.Base64;
 import java.util.Objects;
 
 /**
@@ -61,10 +61,8 @@ public IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGen
         ResourceLocation outRl = new ResourceLocation(this.getPath().getNamespace(), "textures/" + this.getPath().getPath() + ".png");
         var supplier = context.getResourceSource().getResource(outRl);
         if (supplier != null) {
-            try (var is = supplier.get()) {
-                byte[] bytes = is.readAllBytes();
-                String string = Base64.getEncoder().encodeToString(bytes);
-                return DataResult.success(ops.createString(string));
+            try {
+                return DataResult.success(ops.createString(ResourceDigests.digest(context, outRl, supplier)));
             } catch (IOException ignored) {
                 return DataResult.error(() -> "Cannot cache potentially erroring source");
             }
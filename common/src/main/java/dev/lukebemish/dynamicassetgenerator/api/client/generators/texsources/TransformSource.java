@@ -11,7 +11,8 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
@@ -48,39 +49,50 @@ private TransformSource(TexSource input, int rotate, boolean flip) {
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.getInput().getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> input = this.getInput().getCachedHandleSupplier(data, context);
         if (input == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.getInput());
             return null;
         }
         return () -> {
-            NativeImage output = input.get();
-            for (int i = 0; i < this.getRotate(); i++) {
-                output = clockwiseRotate(output);
+            int width;
+            int height;
+            int[] pixels;
+            try (ImageHandle inHandle = input.get()) {
+                NativeImage inImg = inHandle.image();
+                width = inImg.getWidth();
+                height = inImg.getHeight();
+                pixels = ImageRaster.of(inImg).getPixelsABGR();
+            }
+            for (int i = 0; i < this.getRotate() % 4; i++) {
+                pixels = clockwiseRotate(pixels, width, height);
+                int swap = width;
+                //noinspection SuspiciousNameCombination
+                width = height;
+                height = swap;
             }
             if (this.isFlip()) {
-                NativeImage output2 = NativeImageHelper.of(output.format(), output.getWidth(), output.getHeight(), false);
-                for (int x = 0; x < output.getWidth(); x++) {
-                    for (int y = 0; y < output.getHeight(); y++) {
-                        output2.setPixelRGBA((output.getWidth() - 1 - x), y, ImageUtils.safeGetPixelABGR(output, x, y));
+                for (int y = 0; y < height; y++) {
+                    int start = y * width;
+                    for (int x = 0; x < width / 2; x++) {
+                        int swap = pixels[start + x];
+                        pixels[start + x] = pixels[start + width - 1 - x];
+                        pixels[start + width - 1 - x] = swap;
                     }
                 }
-                output.close();
-                output = output2;
             }
+            NativeImage output = NativeImageHelper.of(NativeImage.Format.RGBA, width, height);
+            ImageRaster.of(output).setPixelsABGR(pixels);
             return output;
         };
     }
 
-    private static NativeImage clockwiseRotate(NativeImage input) {
-        int w = input.getWidth();
-        int h = input.getHeight();
-        NativeImage output = NativeImageHelper.of(input.format(), h, w, false);
+    private static int[] clockwiseRotate(int[] input, int w, int h) {
+        // The output is h pixels wide and w pixels tall
+        int[] output = new int[input.length];
         for (int y = 0; y < h; y++)
             for (int x = 0; x < w; x++)
-                //noinspection SuspiciousNameCombination
-                output.setPixelRGBA(y, w - x - 1, ImageUtils.safeGetPixelABGR(input, x, y));
-        input.close();
+                output[(w - x - 1) * h + y] = input[y * w + x];
         return output;
     }
 
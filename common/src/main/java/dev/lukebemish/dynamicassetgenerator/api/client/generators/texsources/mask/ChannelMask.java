@@ -5,18 +5,15 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources.mask;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Channel;
-import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
-import net.minecraft.server.packs.resources.IoSupplier;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import org.jspecify.annotations.NonNull;
-import org.jspecify.annotations.Nullable;
 
 import java.util.List;
 import java.util.Objects;
@@ -25,7 +22,7 @@
  * A {@link TexSource} that extracts a single channel from a texture.
  */
 @SuppressWarnings("unused")
-public final class ChannelMask implements TexSource {
+public final class ChannelMask implements PointwiseTexSource {
     public static final Codec<ChannelMask> CODEC = RecordCodecBuilder.create(i -> i.group(
             TexSource.CODEC.fieldOf("source").forGetter(ChannelMask::getSource),
             Channel.CODEC.fieldOf("channel").forGetter(ChannelMask::getChannel)
@@ -44,21 +41,12 @@ private ChannelMask(TexSource source, Channel channel) {
     }
 
     @Override
-    public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.source.getCachedSupplier(data, context);
-        if (input == null) {
-            data.getLogger().error("Texture given was nonexistent...\n{}", this.source.stringify());
-            return null;
-        }
-        return () -> {
-            PointwiseOperation.Unary<Integer> operation = PointwiseOperation.Unary.chain(
-                    channel.makeOperation(),
-                    (c, i) -> ((c & 0xFF) << 24) | 0xFFFFFF
-            );
-            try (NativeImage inImg = input.get()) {
-                return ImageUtils.generateScaledImage(operation, List.of(inImg));
-            }
-        };
+    public Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IntPointwiseOperation.Unary operation = IntPointwiseOperation.Unary.chain(
+                IntPointwiseOperation.Unary.of(channel.makeOperation()),
+                (c, i) -> ((c & 0xFF) << 24) | 0xFFFFFF
+        );
+        return new Kernel(List.of(this.source), operation);
     }
 
     public TexSource getSource() {
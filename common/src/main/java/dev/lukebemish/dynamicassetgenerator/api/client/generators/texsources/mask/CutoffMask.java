@@ -5,18 +5,15 @@
 
 package dev.lukebemish.dynamicassetgenerator.api.client.generators.texsources.mask;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Channel;
-import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
-import net.minecraft.server.packs.resources.IoSupplier;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import org.jspecify.annotations.NonNull;
-import org.jspecify.annotations.Nullable;
 
 import java.util.List;
 import java.util.Objects;
@@ -24,7 +21,7 @@
 /**
  * A {@link TexSource} that extracts the locations where a given channel is above or below a given cutoff.
  */
-public final class CutoffMask implements TexSource {
+public final class CutoffMask implements PointwiseTexSource {
     private static final int DEFAULT_CUTOFF = 128;
     private static final Channel DEFAULT_CHANNEL = Channel.ALPHA;
 
@@ -50,21 +47,12 @@ private CutoffMask(Channel channel, TexSource source, int cutoff) {
     }
 
     @Override
-    public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.source.getCachedSupplier(data, context);
-        if (input == null) {
-            data.getLogger().error("Texture given was nonexistent...\n{}", this.source.stringify());
-            return null;
-        }
-        return () -> {
-            PointwiseOperation.Unary<Integer> operation = PointwiseOperation.Unary.chain(
-                    channel.makeOperation(),
-                    (c, i) -> i ? ((c & 0xFF) >= cutoff ? 0xFFFFFFFF : 0) : 0
-            );
-            try (NativeImage inImg = input.get()) {
-                return ImageUtils.generateScaledImage(operation, List.of(inImg));
-            }
-        };
+    public Kernel getKernel(TexSourceDataHolder data, ResourceGenerationContext context) {
+        IntPointwiseOperation.Unary operation = IntPointwiseOperation.Unary.chain(
+                IntPointwiseOperation.Unary.of(channel.makeOperation()),
+                (c, i) -> i ? ((c & 0xFF) >= cutoff ? 0xFFFFFFFF : 0) : 0
+        );
+        return new Kernel(List.of(this.source), operation);
     }
 
     public Channel getChannel() {
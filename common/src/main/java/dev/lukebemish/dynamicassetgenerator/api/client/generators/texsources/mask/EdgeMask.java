@@ -11,6 +11,8 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.util.FastColor;
@@ -56,7 +58,7 @@ private EdgeMask(TexSource source, boolean countOutsideFrame, List<Direction> ed
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.source.getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> input = this.source.getCachedHandleSupplier(data, context);
         if (input == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.source.stringify());
             return null;
@@ -64,30 +66,34 @@ private EdgeMask(TexSource source, boolean countOutsideFrame, List<Direction> ed
         int[] xs = edges.stream().mapToInt(e -> e.x).toArray();
         int[] ys = edges.stream().mapToInt(e -> e.y).toArray();
         return () -> {
-            try (NativeImage inImg = input.get()) {
+            try (ImageHandle inImgHandle = input.get()) {
+                NativeImage inImg = inImgHandle.image();
                 int width = inImg.getWidth();
                 int height = inImg.getHeight();
-                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, width, height, false);
-                for (int x = 0; x < width; x++) {
-                    for (int y = 0; y < height; y++) {
+                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, width, height);
+                int[] pixels = ImageRaster.of(inImg).getPixelsABGR();
+                int[] edges = new int[pixels.length];
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
                         boolean isEdge = false;
-                        int color = inImg.getPixelRGBA(x, y);
+                        int color = pixels[y * width + x];
                         if (FastColor.ABGR32.alpha(color) >= cutoff) {
-                            for (int i = 0; i < xs.length; i++) {
+                            for (int i = 0; i < xs.length && !isEdge; i++) {
                                 int x1 = xs[i] + x;
                                 int y1 = ys[i] + y;
-                                if ((countOutsideFrame && (x1 < 0 || y1 < 0 || x1 > width - 1 || y1 > width - 1)) ||
-                                        FastColor.ABGR32.alpha(inImg.getPixelRGBA(x1, y1)) < cutoff)
+                                if (countOutsideFrame && (x1 < 0 || y1 < 0 || x1 > width - 1 || y1 > width - 1))
+                                    isEdge = true;
+                                else if (x1 >= 0 && y1 >= 0 && x1 < width && y1 < height &&
+                                        FastColor.ABGR32.alpha(pixels[y1 * width + x1]) < cutoff)
                                     isEdge = true;
                             }
                         }
 
                         if (isEdge)
-                            out.setPixelRGBA(x, y, 0xFFFFFFFF);
-                        else
-                            out.setPixelRGBA(x, y, 0);
+                            edges[y * width + x] = 0xFFFFFFFF;
                     }
                 }
+                ImageRaster.of(out).setPixelsABGR(edges);
                 return out;
             }
         };
@@ -11,6 +11,8 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
 import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import net.minecraft.server.packs.resources.IoSupplier;
 import net.minecraft.util.FastColor;
@@ -49,49 +51,54 @@ private GrowMask(TexSource source, float growth, int cutoff) {
 
     @Override
     public @Nullable IoSupplier<NativeImage> getSupplier(TexSourceDataHolder data, ResourceGenerationContext context) {
-        IoSupplier<NativeImage> input = this.source.getCachedSupplier(data, context);
+        IoSupplier<ImageHandle> input = this.source.getCachedHandleSupplier(data, context);
         if (input == null) {
             data.getLogger().error("Texture given was nonexistent...\n{}", this.source.stringify());
             return null;
         }
         return () -> {
-            try (NativeImage inImg = input.get()) {
+            try (ImageHandle inImgHandle = input.get()) {
+                NativeImage inImg = inImgHandle.image();
                 int width = inImg.getWidth();
                 int height = inImg.getHeight();
 
                 int toGrow = (int) Math.floor(width * growth);
-                int filterSize = toGrow * toGrow * 2 + 1;
-                int[] xs = new int[filterSize];
-                int[] ys = new int[filterSize];
-                int counter = 0;
-                for (int x = -toGrow; x <= toGrow; x++) {
-                    for (int y = -toGrow; y <= toGrow; y++) {
-                        xs[counter] = x;
-                        ys[counter] = y;
-                        counter++;
+                int[] pixels = ImageRaster.of(inImg).getPixelsABGR();
+
+                // Pixels within toGrow of the edge never cause growth
+                boolean[] solid = new boolean[pixels.length];
+                for (int y = toGrow; y < Math.min(height, width - toGrow); y++) {
+                    for (int x = toGrow; x < width - toGrow; x++) {
+                        solid[y * width + x] = FastColor.ABGR32.alpha(pixels[y * width + x]) >= cutoff;
                     }
                 }
 
-                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, width, height, false);
+                // Grows over a square of side 2 * toGrow + 1, as a horizontal pass followed by a vertical pass
+                boolean[] grownRows = new boolean[pixels.length];
+                for (int y = 0; y < height; y++) {
+                    int lastSolid = Integer.MIN_VALUE / 2;
+                    for (int x = 0; x < width + toGrow; x++) {
+                        if (x < width && solid[y * width + x])
+                            lastSolid = x;
+                        int target = x - toGrow;
+                        if (target >= 0 && x - lastSolid <= 2 * toGrow)
+                            grownRows[y * width + target] = true;
+                    }
+                }
+                int[] grown = new int[pixels.length];
                 for (int x = 0; x < width; x++) {
-                    for (int y = 0; y < height; y++) {
-                        boolean shouldGrow = false;
-                        for (int i : xs) {
-                            for (int j : ys) {
-                                int x1 = x + i;
-                                int y1 = y + j;
-                                if (!(x1 < toGrow || y1 < toGrow || x1 >= width - toGrow || y1 >= width - toGrow) &&
-                                        FastColor.ABGR32.alpha(inImg.getPixelRGBA(x1, y1)) >= cutoff)
-                                    shouldGrow = true;
-                            }
-                        }
-
-                        if (shouldGrow)
-                            out.setPixelRGBA(x, y, 0xFFFFFFFF);
-                        else
-                            out.setPixelRGBA(x, y, 0);
+                    int lastSolid = Integer.MIN_VALUE / 2;
+                    for (int y = 0; y < height + toGrow; y++) {
+                        if (y < height && grownRows[y * width + x])
+                            lastSolid = y;
+                        int target = y - toGrow;
+                        if (target >= 0 && y - lastSolid <= 2 * toGrow)
+                            grown[target * width + x] = 0xFFFFFFFF;
                     }
                 }
+
+                NativeImage out = NativeImageHelper.of(NativeImage.Format.RGBA, width, height);
+                ImageRaster.of(out).setPixelsABGR(grown);
                 return out;
             }
         };
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.client.image;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference-counted, read-only handle to a {@link NativeImage}, which may be shared between any number of consumers
+ * without copying. Each handle must be closed once it is no longer needed; the underlying image is freed once every
+ * handle to it has been closed. The image exposed by a handle must not be modified or closed; consumers which need to
+ * modify an image should obtain their own copy with {@link #copy()} or {@link #toOwned()}.
+ */
+public final class ImageHandle implements AutoCloseable {
+    private final Shared shared;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private ImageHandle(Shared shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Creates a new handle which takes ownership of the provided image.
+     * @param image the image to wrap; should not be used directly after being wrapped
+     * @return a new handle to the image
+     */
+    public static ImageHandle of(NativeImage image) {
+        return new ImageHandle(new Shared(image));
+    }
+
+    /**
+     * @return the image this handle refers to, which must not be modified or closed
+     */
+    public NativeImage image() {
+        if (closed.get()) {
+            throw new IllegalStateException("Image handle has already been closed");
+        }
+        return shared.image;
+    }
+
+    /**
+     * @return a new handle to the same image, which must be closed separately from this one
+     * @throws IllegalStateException if this handle, or every handle to the image, has already been closed
+     */
+    public ImageHandle retain() {
+        if (closed.get() || !shared.acquire()) {
+            throw new IllegalStateException("Image handle has already been closed");
+        }
+        return new ImageHandle(shared);
+    }
+
+    /**
+     * @return a new image, owned by the caller, with the same contents as the image this handle refers to
+     */
+    public NativeImage copy() {
+        return copyOf(image());
+    }
+
+    /**
+     * Closes this handle, and provides an image owned by the caller with the same contents. If this is the only
+     * remaining handle to the image, the image itself is provided without copying.
+     * @return an image owned by the caller
+     */
+    public NativeImage toOwned() {
+        if (!closed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Image handle has already been closed");
+        }
+        if (shared.references.compareAndSet(1, 0)) {
+            return shared.image;
+        }
+        try {
+            return copyOf(shared.image);
+        } finally {
+            shared.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            shared.release();
+        }
+    }
+
+    private static NativeImage copyOf(NativeImage image) {
+        NativeImage output = NativeImageHelper.allocate(image.format(), image.getWidth(), image.getHeight());
+        output.copyFrom(image);
+        return output;
+    }
+
+    private static final class Shared {
+        private final NativeImage image;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Shared(NativeImage image) {
+            this.image = image;
+        }
+
+        private boolean acquire() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                NativeImageHelper.release(image);
+            }
+        }
+    }
+}
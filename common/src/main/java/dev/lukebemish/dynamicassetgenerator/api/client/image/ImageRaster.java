@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.client.image;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.impl.mixin.NativeImageAccessor;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.IntBuffer;
+import java.util.Objects;
+
+/**
+ * A view over the pixels of an RGBA {@link NativeImage} which reads and writes whole rows or the whole image at once,
+ * converting between channel orders in bulk rather than one pixel at a time. Methods suffixed with {@code ABGR} use
+ * the encoding native to the image, as returned by {@link NativeImage#getPixelRGBA}; the rest use ARGB32 encoding, like
+ * {@link ImageUtils#safeGetPixelARGB}. A raster is only valid while the image it views is open.
+ */
+public final class ImageRaster {
+    private final NativeImage image;
+    private final int width;
+    private final int height;
+    private final long address;
+    private final IntBuffer pixels;
+
+    private ImageRaster(NativeImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.address = pointer(image);
+        this.pixels = MemoryUtil.memIntBuffer(address, width * height);
+    }
+
+    /**
+     * Creates a raster viewing the pixels of an image.
+     * @param image an open image in the RGBA format
+     * @return a new raster over the image
+     * @throws IllegalArgumentException if the image is not in the RGBA format
+     * @throws IllegalStateException if the image has been closed
+     */
+    public static ImageRaster of(NativeImage image) {
+        if (image.format() != NativeImage.Format.RGBA) {
+            throw new IllegalArgumentException("Rasters can only view RGBA images, not " + image.format());
+        }
+        return new ImageRaster(image);
+    }
+
+    private static long pointer(NativeImage image) {
+        long pointer = ((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels();
+        if (pointer == 0) {
+            throw new IllegalStateException("Image is not allocated");
+        }
+        return pointer;
+    }
+
+    private void checkAllocated() {
+        if (((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels() != address) {
+            throw new IllegalStateException("Image is not allocated");
+        }
+    }
+
+    private void checkRow(int y, int x, int length) {
+        if (y < 0 || y >= height || x < 0 || length < 0 || x + length > width) {
+            throw new IndexOutOfBoundsException("Span of " + length + " pixels at (" + x + ", " + y + ") is outside of a " + width + "x" + height + " image");
+        }
+        checkAllocated();
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Reads part of a row of pixels in ABGR encoding.
+     * @param y the row to read from
+     * @param x the first column to read
+     * @param length the number of pixels to read
+     * @param dst the array to read into
+     * @param offset the index in the array to start writing at
+     */
+    public void readRowABGR(int y, int x, int length, int[] dst, int offset) {
+        checkRow(y, x, length);
+        pixels.get(y * width + x, dst, offset, length);
+    }
+
+    /**
+     * Reads a row of pixels in ABGR encoding into the start of an array at least as long as the image is wide.
+     */
+    public void readRowABGR(int y, int[] dst) {
+        readRowABGR(y, 0, width, dst, 0);
+    }
+
+    /**
+     * Reads part of a row of pixels in ARGB encoding.
+     * @param y the row to read from
+     * @param x the first column to read
+     * @param length the number of pixels to read
+     * @param dst the array to read into
+     * @param offset the index in the array to start writing at
+     */
+    public void readRow(int y, int x, int length, int[] dst, int offset) {
+        readRowABGR(y, x, length, dst, offset);
+        swapRedBlue(dst, offset, length);
+    }
+
+    /**
+     * Reads a row of pixels in ARGB encoding into the start of an array at least as long as the image is wide.
+     */
+    public void readRow(int y, int[] dst) {
+        readRow(y, 0, width, dst, 0);
+    }
+
+    /**
+     * Writes part of a row of pixels in ABGR encoding.
+     * @param y the row to write to
+     * @param x the first column to write
+     * @param length the number of pixels to write
+     * @param src the array to write from
+     * @param offset the index in the array to start reading at
+     */
+    public void writeRowABGR(int y, int x, int length, int[] src, int offset) {
+        checkRow(y, x, length);
+        pixels.put(y * width + x, src, offset, length);
+    }
+
+    /**
+     * Writes a row of pixels in ABGR encoding from the start of an array at least as long as the image is wide.
+     */
+    public void writeRowABGR(int y, int[] src) {
+        writeRowABGR(y, 0, width, src, 0);
+    }
+
+    /**
+     * Writes part of a row of pixels in ARGB encoding. The source array is left unchanged.
+     * @param y the row to write to
+     * @param x the first column to write
+     * @param length the number of pixels to write
+     * @param src the array to write from
+     * @param offset the index in the array to start reading at
+     */
+    public void writeRow(int y, int x, int length, int[] src, int offset) {
+        checkRow(y, x, length);
+        int start = y * width + x;
+        for (int i = 0; i < length; i++) {
+            pixels.put(start + i, swapRedBlue(src[offset + i]));
+        }
+    }
+
+    /**
+     * Writes a row of pixels in ARGB encoding from the start of an array at least as long as the image is wide. The
+     * source array is left unchanged.
+     */
+    public void writeRow(int y, int[] src) {
+        writeRow(y, 0, width, src, 0);
+    }
+
+    /**
+     * @return every pixel of the image in ABGR encoding, row by row
+     */
+    public int[] getPixelsABGR() {
+        checkAllocated();
+        int[] out = new int[width * height];
+        pixels.get(0, out);
+        return out;
+    }
+
+    /**
+     * @return every pixel of the image in ARGB encoding, row by row
+     */
+    public int[] getPixels() {
+        int[] out = getPixelsABGR();
+        swapRedBlue(out, 0, out.length);
+        return out;
+    }
+
+    /**
+     * Replaces every pixel of the image with pixels in ABGR encoding, row by row.
+     * @param src an array holding exactly as many pixels as the image
+     */
+    public void setPixelsABGR(int[] src) {
+        checkLength(src);
+        checkAllocated();
+        pixels.put(0, src);
+    }
+
+    /**
+     * Replaces every pixel of the image with pixels in ARGB encoding, row by row. The source array is left unchanged.
+     * @param src an array holding exactly as many pixels as the image
+     */
+    public void setPixels(int[] src) {
+        checkLength(src);
+        int[] converted = src.clone();
+        swapRedBlue(converted, 0, converted.length);
+        setPixelsABGR(converted);
+    }
+
+    private void checkLength(int[] src) {
+        Objects.requireNonNull(src);
+        if (src.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " pixels, got " + src.length);
+        }
+    }
+
+    /**
+     * Converts colors between ABGR and ARGB encoding in place; the conversion is its own inverse.
+     * @param colors the colors to convert
+     * @param offset the index of the first color to convert
+     * @param length the number of colors to convert
+     */
+    public static void swapRedBlue(int[] colors, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            colors[i] = swapRedBlue(colors[i]);
+        }
+    }
+
+    /**
+     * Converts a color between ABGR and ARGB encoding; the conversion is its own inverse.
+     */
+    public static int swapRedBlue(int color) {
+        return (color & 0xFF00FF00) | ((color >>> 16) & 0xFF) | ((color & 0xFF) << 16);
+    }
+}
@@ -9,14 +9,16 @@
 import com.mojang.datafixers.util.Pair;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
+import dev.lukebemish.dynamicassetgenerator.impl.client.NativeImageHelper;
 import dev.lukebemish.dynamicassetgenerator.impl.util.Maath;
+import dev.lukebemish.dynamicassetgenerator.impl.util.RowBands;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.logging.log4j.util.TriConsumer;
 
 import java.util.List;
-import java.util.stream.IntStream;
 
 /**
  * A series of utilities for working with images and colors.
@@ -30,9 +32,12 @@ private ImageUtils() {}
      */
     public static Palette getPalette(NativeImage image, double cutoff) {
         Palette palette = new Palette(cutoff);
-        for (int i = 0; i < image.getWidth(); i++) {
-            for (int j = 0; j < image.getHeight(); j++) {
-                int color = safeGetPixelARGB(image, i, j);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ImageRaster.of(image).getPixels();
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                int color = pixels[j * width + i];
                 if (ColorTypes.ARGB32.alpha(color) != 0) {
                     palette.add(color);
                 }
@@ -139,6 +144,11 @@ default void accept(Integer integer, Integer integer2, T t) {
         }
     }
 
+    @FunctionalInterface
+    public interface IntOperationResultConsumer {
+        void acceptResult(int x, int y, int result);
+    }
+
     /**
      * Applies a pointwise operation to a list of images, scaled so that their widths are all equal, and feeds the
      * results and their positions to a consumer.
@@ -156,15 +166,19 @@ public static <T> void applyScaledOperation(PointwiseOperation<T> pointwiseOpera
         int width = scaledSize.getFirst();
         int height = scaledSize.getSecond();
         int numImages = images.size();
+        int[][] pixels = new int[numImages][];
+        int[] widths = new int[numImages];
+        int[] heights = new int[numImages];
+        readAll(images, pixels, widths, heights);
         for (int i = 0; i < width; i++) {
             for (int j = 0; j < height; j++) {
                 int[] colors = new int[numImages];
                 boolean[] inBounds = new boolean[numImages];
                 for (int k = 0; k < numImages; k++) {
-                    int x = i * images.get(k).getWidth() / width;
-                    int y = j * images.get(k).getHeight() / height;
-                    colors[k] = safeGetPixelARGB(images.get(k), x, y, 0);
-                    inBounds[k] = (x >= 0 && x < images.get(k).getWidth() && y >= 0 && y < images.get(k).getHeight());
+                    int x = i * widths[k] / width;
+                    int y = j * heights[k] / height;
+                    inBounds[k] = (x >= 0 && x < widths[k] && y >= 0 && y < heights[k]);
+                    colors[k] = inBounds[k] ? pixels[k][y * widths[k] + x] : 0;
                 }
                 T t = pointwiseOperation.apply(colors, inBounds);
                 consumer.accept(i, j, t);
@@ -174,8 +188,8 @@ public static <T> void applyScaledOperation(PointwiseOperation<T> pointwiseOpera
 
     /**
      * Applies a pointwise operation to a list of images, scaled so that their widths are all equal, and feeds the
-     * results and their positions to a consumer. The operation is applied in parallel, and the provided operation and
-     * consumer must be thread-safe.
+     * results and their positions to a consumer. The operation is applied in parallel over bands of rows for large
+     * images, and the provided operation and consumer must be thread-safe.
      * @param pointwiseOperation the operation to apply
      * @param consumer the consumer to feed the results to - accepts the x and y coordinates of the pixel, and the data
      *                 generated by the operation
@@ -190,15 +204,19 @@ public static <T> void applyParallelScaledOperation(PointwiseOperation<T> pointw
         int width = scaledSize.getFirst();
         int height = scaledSize.getSecond();
         int numImages = images.size();
-        IntStream.range(0, width).parallel().forEach(i -> {
-            for (int j = 0; j < height; j++) {
+        int[][] pixels = new int[numImages][];
+        int[] widths = new int[numImages];
+        int[] heights = new int[numImages];
+        readAll(images, pixels, widths, heights);
+        RowBands.forEachRow(width, height, j -> {
+            for (int i = 0; i < width; i++) {
                 int[] colors = new int[numImages];
                 boolean[] inBounds = new boolean[numImages];
                 for (int k = 0; k < numImages; k++) {
-                    int x = i * images.get(k).getWidth() / width;
-                    int y = j * images.get(k).getHeight() / height;
-                    colors[k] = safeGetPixelARGB(images.get(k), x, y, 0);
-                    inBounds[k] = (x >= 0 && x < images.get(k).getWidth() && y >= 0 && y < images.get(k).getHeight());
+                    int x = i * widths[k] / width;
+                    int y = j * heights[k] / height;
+                    inBounds[k] = (x >= 0 && x < widths[k] && y >= 0 && y < heights[k]);
+                    colors[k] = inBounds[k] ? pixels[k][y * widths[k] + x] : 0;
                 }
                 T t = pointwiseOperation.apply(colors, inBounds);
                 consumer.accept(i, j, t);
@@ -206,20 +224,130 @@ public static <T> void applyParallelScaledOperation(PointwiseOperation<T> pointw
         });
     }
 
+    /**
+     * Applies a pointwise operation producing colors to a list of images, scaled so that their widths are all equal,
+     * and feeds the results and their positions to a consumer. Unlike {@link #applyScaledOperation}, results are never
+     * boxed, and the arrays passed to the operation are reused between points.
+     * @param pointwiseOperation the operation to apply
+     * @param consumer the consumer to feed the results to - accepts the x and y coordinates of the pixel, and the color
+     *                 generated by the operation
+     * @param images the images to apply the operation to. The number of images must match the number expected by the
+     *               operation, or the operation must expect any number of images
+     */
+    public static void applyScaledIntOperation(IntPointwiseOperation pointwiseOperation, IntOperationResultConsumer consumer, List<NativeImage> images) {
+        if (pointwiseOperation.expectedImages() != images.size() && pointwiseOperation.expectedImages() != -1)
+            throw new IllegalArgumentException("Expected " + pointwiseOperation.expectedImages() + " images, got " + images.size());
+        Pair<Integer, Integer> scaledSize = calculateScaledSize(images);
+        int width = scaledSize.getFirst();
+        int height = scaledSize.getSecond();
+        int numImages = images.size();
+        int[][] pixels = new int[numImages][];
+        int[] widths = new int[numImages];
+        int[] heights = new int[numImages];
+        readAll(images, pixels, widths, heights);
+        applyRows(pointwiseOperation, consumer, pixels, widths, heights, width, height, 0, height);
+    }
+
+    /**
+     * Applies a pointwise operation producing colors to a list of images, scaled so that their widths are all equal,
+     * and feeds the results and their positions to a consumer. Unlike {@link #applyParallelScaledOperation}, results
+     * are never boxed, and the arrays passed to the operation are reused between points processed by the same task.
+     * The operation is applied in parallel over bands of rows for large images, and the provided operation and consumer
+     * must be thread-safe.
+     * @param pointwiseOperation the operation to apply
+     * @param consumer the consumer to feed the results to - accepts the x and y coordinates of the pixel, and the color
+     *                 generated by the operation
+     * @param images the images to apply the operation to. The number of images must match the number expected by the
+     *               operation, or the operation must expect any number of images
+     */
+    public static void applyParallelScaledIntOperation(IntPointwiseOperation pointwiseOperation, IntOperationResultConsumer consumer, List<NativeImage> images) {
+        if (pointwiseOperation.expectedImages() != images.size() && pointwiseOperation.expectedImages() != -1)
+            throw new IllegalArgumentException("Expected " + pointwiseOperation.expectedImages() + " images, got " + images.size());
+        Pair<Integer, Integer> scaledSize = calculateScaledSize(images);
+        int width = scaledSize.getFirst();
+        int height = scaledSize.getSecond();
+        int numImages = images.size();
+        int[][] pixels = new int[numImages][];
+        int[] widths = new int[numImages];
+        int[] heights = new int[numImages];
+        readAll(images, pixels, widths, heights);
+        RowBands.forEachBand(width, height, (fromY, toY) ->
+            applyRows(pointwiseOperation, consumer, pixels, widths, heights, width, height, fromY, toY));
+    }
+
+    private static void applyRows(IntPointwiseOperation pointwiseOperation, IntOperationResultConsumer consumer, int[][] pixels, int[] widths, int[] heights, int width, int height, int fromY, int toY) {
+        int numImages = pixels.length;
+        int[] colors = new int[numImages];
+        boolean[] inBounds = new boolean[numImages];
+        for (int j = fromY; j < toY; j++) {
+            for (int i = 0; i < width; i++) {
+                for (int k = 0; k < numImages; k++) {
+                    int x = i * widths[k] / width;
+                    int y = j * heights[k] / height;
+                    inBounds[k] = (x >= 0 && x < widths[k] && y >= 0 && y < heights[k]);
+                    colors[k] = inBounds[k] ? pixels[k][y * widths[k] + x] : 0;
+                }
+                consumer.acceptResult(i, j, pointwiseOperation.applyAsInt(colors, inBounds));
+            }
+        }
+    }
+
+    // Reads every source image in bulk up front, rather than converting each pixel as it is sampled
+    private static void readAll(List<NativeImage> images, int[][] pixels, int[] widths, int[] heights) {
+        for (int k = 0; k < images.size(); k++) {
+            NativeImage image = images.get(k);
+            pixels[k] = ImageRaster.of(image).getPixels();
+            widths[k] = image.getWidth();
+            heights[k] = image.getHeight();
+        }
+    }
+
     /**
      * Generates an image by applying a pointwise operation to a list of images, scaled so that their widths are all
      * equal.
-     * @param pointwiseOperation the operation to apply. Is applied in parallel and must be threadsafe
+     * @param pointwiseOperation the operation to apply. Is applied in parallel and must be threadsafe, and must not
+     *                           retain the arrays it is passed, as they are reused between points
      * @param images the images to apply the operation to. The number of images must match the number expected by the
      *               operation, or the operation must expect any number of images
      * @return the generated image
      */
     public static NativeImage generateScaledImage(PointwiseOperation<Integer> pointwiseOperation, List<NativeImage> images) {
+        if (pointwiseOperation.expectedImages() != images.size() && pointwiseOperation.expectedImages() != -1)
+            throw new IllegalArgumentException("Expected " + pointwiseOperation.expectedImages() + " images, got " + images.size());
+        IntPointwiseOperation operation = IntPointwiseOperation.of(pointwiseOperation);
         Pair<Integer, Integer> scaledSize = calculateScaledSize(images);
         int width = scaledSize.getFirst();
         int height = scaledSize.getSecond();
-        NativeImage out = new NativeImage(width, height, false);
-        applyParallelScaledOperation(pointwiseOperation, (x, y, color) -> safeSetPixelARGB(out, x, y, color), images);
+        int numImages = images.size();
+        int[][] inputs = new int[numImages][];
+        int[] widths = new int[numImages];
+        int[] heights = new int[numImages];
+        readAll(images, inputs, widths, heights);
+        int[] pixels = new int[width * height];
+        // Every scaled image covers the whole output, so each row can be passed to the operation at once
+        RowBands.forEachBand(width, height, (fromY, toY) -> {
+            int[][] rows = new int[numImages][width];
+            for (int j = fromY; j < toY; j++) {
+                for (int k = 0; k < numImages; k++) {
+                    scaleRow(inputs[k], widths[k], heights[k] * j / height, rows[k], width);
+                }
+                operation.applyRow(rows, pixels, j * width, width);
+            }
+        });
+        ImageRaster.swapRedBlue(pixels, 0, pixels.length);
+        NativeImage out = NativeImageHelper.allocate(NativeImage.Format.RGBA, width, height);
+        ImageRaster.of(out).setPixelsABGR(pixels);
         return out;
     }
+
+    private static void scaleRow(int[] pixels, int width, int y, int[] row, int scaledWidth) {
+        int start = y * width;
+        if (width == scaledWidth) {
+            System.arraycopy(pixels, start, row, 0, width);
+        } else {
+            for (int x = 0; x < scaledWidth; x++) {
+                row[x] = pixels[start + x * width / scaledWidth];
+            }
+        }
+    }
 }
@@ -8,6 +8,7 @@
 import com.mojang.serialization.Codec;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.CachedConversionOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.ChannelOperation;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
 import dev.lukebemish.dynamicassetgenerator.api.colors.operations.PointwiseOperation;
 import net.minecraft.util.StringRepresentable;
 import org.jspecify.annotations.NonNull;
@@ -24,41 +25,41 @@ public enum Channel implements StringRepresentable {
     BLUE(() -> new ChannelOperation(0)),
     ALPHA(() -> new ChannelOperation(3)),
 
-    CIELAB_LIGHTNESS(() -> PointwiseOperation.Unary.chain(
+    CIELAB_LIGHTNESS(() -> IntPointwiseOperation.Unary.chain(
             new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.CIELAB32::fromARGB32)),
             new ChannelOperation(2))
     ),
-    CIELAB_A(() -> PointwiseOperation.Unary.chain(
+    CIELAB_A(() -> IntPointwiseOperation.Unary.chain(
             new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.CIELAB32::fromARGB32)),
             new ChannelOperation(1))
     ),
-    CIELAB_B(() -> PointwiseOperation.Unary.chain(
+    CIELAB_B(() -> IntPointwiseOperation.Unary.chain(
             new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.CIELAB32::fromARGB32)),
             new ChannelOperation(0))
     ),
 
-    HSL_LIGHTNESS(() -> PointwiseOperation.Unary.chain(
+    HSL_LIGHTNESS(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSL32::fromARGB32)),
         new ChannelOperation(2))
     ),
-    HSL_SATURATION(() -> PointwiseOperation.Unary.chain(
+    HSL_SATURATION(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSL32::fromARGB32)),
         new ChannelOperation(1))
     ),
-    HSL_HUE(() -> PointwiseOperation.Unary.chain(
+    HSL_HUE(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSL32::fromARGB32)),
         new ChannelOperation(0))
     ),
 
-    HSV_VALUE(() -> PointwiseOperation.Unary.chain(
+    HSV_VALUE(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSV32::fromARGB32)),
         new ChannelOperation(2))
     ),
-    HSV_SATURATION(() -> PointwiseOperation.Unary.chain(
+    HSV_SATURATION(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSV32::fromARGB32)),
         new ChannelOperation(1))
     ),
-    HSV_HUE(() -> PointwiseOperation.Unary.chain(
+    HSV_HUE(() -> IntPointwiseOperation.Unary.chain(
         new CachedConversionOperation(new ColorTypes.ConversionCache32(ColorTypes.HSV32::fromARGB32)),
         new ChannelOperation(0))
     );
@@ -88,12 +88,17 @@ public int blue(int color) {
 
         @Override
         public int toARGB32(int color) {
-            return ARGB32.color(alpha(color), red(color), green(color), blue(color));
+            return swapRedBlue(color);
         }
 
         @Override
         public int fromARGB32(int color) {
-            return color(ARGB32.alpha(color), ARGB32.blue(color), ARGB32.green(color), ARGB32.red(color));
+            return swapRedBlue(color);
+        }
+
+        // Both conversions only exchange the red and blue channels, which needs no unpacking
+        private static int swapRedBlue(int color) {
+            return (color & 0xFF00FF00) | ((color >>> 16) & 0xFF) | ((color & 0xFF) << 16);
         }
     }
     public static final ABGR32 ABGR32 = new ABGR32();
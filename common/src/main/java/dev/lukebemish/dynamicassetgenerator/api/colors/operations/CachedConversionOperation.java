@@ -10,7 +10,7 @@
 /**
  * A {@link PointwiseOperation.Unary} that uses a {@link ColorTypes.ConversionCache32} to convert colors.
  */
-public class CachedConversionOperation implements PointwiseOperation.Unary<Integer> {
+public class CachedConversionOperation implements IntPointwiseOperation.Unary {
     private final ColorTypes.ConversionCache32 cache;
 
     public CachedConversionOperation(ColorTypes.ConversionCache32 cache) {
@@ -18,7 +18,7 @@ public CachedConversionOperation(ColorTypes.ConversionCache32 cache) {
     }
 
     @Override
-    public Integer apply(int color, boolean isInBounds) {
+    public int applyAsInt(int color, boolean isInBounds) {
         return cache.convert(color);
     }
 }
@@ -8,7 +8,7 @@
 /**
  * A pointwise operation that extracts a single channel from a color.
  */
-public class ChannelOperation implements PointwiseOperation.Unary<Integer> {
+public class ChannelOperation implements IntPointwiseOperation.Unary {
     private final int channel;
 
     public ChannelOperation(int channel) {
@@ -16,7 +16,7 @@ public ChannelOperation(int channel) {
     }
 
     @Override
-    public Integer apply(int color, boolean isInBounds) {
+    public int applyAsInt(int color, boolean isInBounds) {
         return (color >> channel) & 0xFF;
     }
 }
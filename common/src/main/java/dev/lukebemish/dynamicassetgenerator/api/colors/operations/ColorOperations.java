@@ -7,8 +7,12 @@
 
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 
+import java.util.Arrays;
+
 /**
- * A collection of common pointwise operations on colors.
+ * A collection of common pointwise operations on colors. Each is an {@link IntPointwiseOperation}, and so can be applied
+ * without boxing its results; those combining several images also process whole rows at once in
+ * {@link IntPointwiseOperation#applyRow}.
  */
 public final class ColorOperations {
     private ColorOperations() {}
@@ -16,83 +20,174 @@ private ColorOperations() {}
     /**
      * A pointwise operation that combines the alpha channel of the second color with the RGB channels of the first.
      */
-    public static final PointwiseOperation.Binary<Integer> MASK = (i, m, iInBounds, mInBounds) -> {
-        if (!mInBounds || !iInBounds)
-            return 0;
-        int maskAlpha = ColorTypes.ARGB32.alpha(m);
-        int oldAlpha = ColorTypes.ARGB32.alpha(i);
-        int newAlpha = maskAlpha * oldAlpha / 255;
-        return (i & 0xFFFFFF) | ((newAlpha & 0xFF) << 24);
+    public static final PointwiseOperation.Binary<Integer> MASK = new IntPointwiseOperation.Binary() {
+        @Override
+        public int applyAsInt(int i, int m, boolean iInBounds, boolean mInBounds) {
+            if (!mInBounds || !iInBounds)
+                return 0;
+            int maskAlpha = ColorTypes.ARGB32.alpha(m);
+            int oldAlpha = ColorTypes.ARGB32.alpha(i);
+            int newAlpha = maskAlpha * oldAlpha / 255;
+            return (i & 0xFFFFFF) | ((newAlpha & 0xFF) << 24);
+        }
+
+        @Override
+        public void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            if (inputs.length != 2)
+                throw new IllegalArgumentException("Binary operation must have exactly two input images");
+            int[] colors = inputs[0];
+            int[] masks = inputs[1];
+            for (int i = 0; i < length; i++) {
+                int color = colors[i];
+                out[outOffset + i] = (color & 0xFFFFFF) | (div255((masks[i] >>> 24) * (color >>> 24)) << 24);
+            }
+        }
     };
 
     /**
      * A pointwise operation that overlays all provided colors, using alpha compositing. The first provided color is the
      * top layer, and the last provided color is the bottom layer.
      */
-    public static final PointwiseOperation.Any<Integer> OVERLAY = (colors, inBounds) -> {
-        if (colors.length == 0)
-            return 0;
-        int color = 0;
-        for (int i = 0; i < colors.length; i++) {
-            if (inBounds[i]) {
-                color = ColorTypes.ARGB32.alphaBlend(color, colors[i]);
+    public static final PointwiseOperation.Any<Integer> OVERLAY = new IntPointwiseOperation.Any() {
+        @Override
+        public int applyAsInt(int[] colors, boolean[] inBounds) {
+            if (colors.length == 0)
+                return 0;
+            int color = 0;
+            for (int i = 0; i < colors.length; i++) {
+                if (inBounds[i]) {
+                    color = ColorTypes.ARGB32.alphaBlend(color, colors[i]);
+                }
+            }
+            return color;
+        }
+
+        @Override
+        public void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            for (int i = 0; i < length; i++) {
+                int color = 0;
+                for (int[] layer : inputs) {
+                    // Layers beneath an opaque color leave it unchanged
+                    if ((color >>> 24) == 0xFF)
+                        break;
+                    color = ColorTypes.ARGB32.alphaBlend(color, layer[i]);
+                }
+                out[outOffset + i] = color;
             }
         }
-        return color;
     };
 
     /**
      * A pointwise operation that adds all provided colors together, clamping the result to 255.
      */
-    public static final PointwiseOperation.Any<Integer> ADD = (colors, inBounds) -> {
-        if (colors.length == 0)
-            return 0;
-        int alpha = 0;
-        int red = 0;
-        int green = 0;
-        int blue = 0;
-        for (int i = 0; i < colors.length; i++) {
-            if (inBounds[i]) {
-                alpha += ColorTypes.ARGB32.alpha(colors[i]);
-                red += ColorTypes.ARGB32.red(colors[i]);
-                green += ColorTypes.ARGB32.green(colors[i]);
-                blue += ColorTypes.ARGB32.blue(colors[i]);
+    public static final PointwiseOperation.Any<Integer> ADD = new IntPointwiseOperation.Any() {
+        @Override
+        public int applyAsInt(int[] colors, boolean[] inBounds) {
+            if (colors.length == 0)
+                return 0;
+            int alpha = 0;
+            int red = 0;
+            int green = 0;
+            int blue = 0;
+            for (int i = 0; i < colors.length; i++) {
+                if (inBounds[i]) {
+                    alpha += ColorTypes.ARGB32.alpha(colors[i]);
+                    red += ColorTypes.ARGB32.red(colors[i]);
+                    green += ColorTypes.ARGB32.green(colors[i]);
+                    blue += ColorTypes.ARGB32.blue(colors[i]);
+                }
+            }
+            return ColorTypes.ARGB32.color(ColorTypes.clamp8(alpha), ColorTypes.clamp8(red), ColorTypes.clamp8(green), ColorTypes.clamp8(blue));
+        }
+
+        @Override
+        public void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            if (inputs.length == 0) {
+                Arrays.fill(out, outOffset, outOffset + length, 0);
+                return;
+            }
+            System.arraycopy(inputs[0], 0, out, outOffset, length);
+            for (int k = 1; k < inputs.length; k++) {
+                int[] layer = inputs[k];
+                for (int i = 0; i < length; i++) {
+                    out[outOffset + i] = addSaturating(out[outOffset + i], layer[i]);
+                }
             }
         }
-        return ColorTypes.ARGB32.color(ColorTypes.clamp8(alpha), ColorTypes.clamp8(red), ColorTypes.clamp8(green), ColorTypes.clamp8(blue));
     };
 
     /**
      * A pointwise operation that multiplies all provided colors together, scaling to a 0-255 range.
      */
-    public static final PointwiseOperation.Any<Integer> MULTIPLY = (colors, inBounds) -> {
-        if (colors.length == 0)
-            return 0;
-        float alpha = 255;
-        float red = 255;
-        float green = 255;
-        float blue = 255;
-        for (int i = 0; i < colors.length; i++) {
-            if (inBounds[i]) {
-                alpha *= ColorTypes.ARGB32.alpha(colors[i]) / 255f;
-                red *= ColorTypes.ARGB32.red(colors[i]) / 255f;
-                green *= ColorTypes.ARGB32.green(colors[i]) / 255f;
-                blue *= ColorTypes.ARGB32.blue(colors[i]) / 255f;
+    public static final PointwiseOperation.Any<Integer> MULTIPLY = new IntPointwiseOperation.Any() {
+        @Override
+        public int applyAsInt(int[] colors, boolean[] inBounds) {
+            if (colors.length == 0)
+                return 0;
+            float alpha = 255;
+            float red = 255;
+            float green = 255;
+            float blue = 255;
+            for (int i = 0; i < colors.length; i++) {
+                if (inBounds[i]) {
+                    alpha *= ColorTypes.ARGB32.alpha(colors[i]) / 255f;
+                    red *= ColorTypes.ARGB32.red(colors[i]) / 255f;
+                    green *= ColorTypes.ARGB32.green(colors[i]) / 255f;
+                    blue *= ColorTypes.ARGB32.blue(colors[i]) / 255f;
+                }
+            }
+            return multiplied(alpha, red, green, blue);
+        }
+
+        @Override
+        public void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            if (inputs.length == 0) {
+                Arrays.fill(out, outOffset, outOffset + length, 0);
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                float alpha = 255;
+                float red = 255;
+                float green = 255;
+                float blue = 255;
+                for (int[] layer : inputs) {
+                    int color = layer[i];
+                    alpha *= (color >>> 24) / 255f;
+                    red *= ((color >>> 16) & 0xFF) / 255f;
+                    green *= ((color >>> 8) & 0xFF) / 255f;
+                    blue *= (color & 0xFF) / 255f;
+                }
+                out[outOffset + i] = multiplied(alpha, red, green, blue);
             }
         }
-        alpha = Math.round(alpha);
-        red = Math.round(red);
-        green = Math.round(green);
-        blue = Math.round(blue);
-        return ColorTypes.ARGB32.color(ColorTypes.clamp8((int) alpha), ColorTypes.clamp8((int) red), ColorTypes.clamp8((int) green), ColorTypes.clamp8((int) blue));
+
+        private int multiplied(float alpha, float red, float green, float blue) {
+            alpha = Math.round(alpha);
+            red = Math.round(red);
+            green = Math.round(green);
+            blue = Math.round(blue);
+            return ColorTypes.ARGB32.color(ColorTypes.clamp8((int) alpha), ColorTypes.clamp8((int) red), ColorTypes.clamp8((int) green), ColorTypes.clamp8((int) blue));
+        }
     };
 
     /**
      * A pointwise operation that inverts the color.
      */
-    public static final PointwiseOperation.Unary<Integer> INVERT = (color, inBounds) -> {
+    public static final PointwiseOperation.Unary<Integer> INVERT = (IntPointwiseOperation.Unary) (color, inBounds) -> {
         if (!inBounds)
             return 0;
         return ~color;
     };
+
+    // Exact for products of two channels, and avoids integer division so row loops can be vectorized
+    private static int div255(int value) {
+        return (value + 1 + (value >>> 8)) >>> 8;
+    }
+
+    // Adds each channel of two colors, clamping to 255, without unpacking them
+    private static int addSaturating(int x, int y) {
+        int sum = ((x & 0x7F7F7F7F) + (y & 0x7F7F7F7F)) ^ ((x ^ y) & 0x80808080);
+        int overflow = ((x & y) | ((x | y) & ~sum)) & 0x80808080;
+        return sum | ((overflow >>> 7) * 0xFF);
+    }
 }
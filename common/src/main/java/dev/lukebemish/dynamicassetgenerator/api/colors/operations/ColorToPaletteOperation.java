@@ -12,7 +12,7 @@
  * A single-image pointwise operation that maps from a color to a palette sample number.
  */
 @SuppressWarnings("unused")
-public class ColorToPaletteOperation implements PointwiseOperation.Unary<Integer> {
+public class ColorToPaletteOperation implements IntPointwiseOperation.Unary {
     private final Palette palette;
 
     public ColorToPaletteOperation(Palette palette) {
@@ -24,7 +24,7 @@ public Palette getPalette() {
     }
 
     @Override
-    public Integer apply(int color, boolean isInBounds) {
+    public int applyAsInt(int color, boolean isInBounds) {
         if (!isInBounds)
             return 0;
         if ((color & 0xFF000000) == 0)
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.colors.operations;
+
+import java.util.Arrays;
+
+/**
+ * A {@link PointwiseOperation} which generates a color at each point, as a primitive {@code int} rather than a boxed
+ * {@link Integer}. Can be used anywhere a {@code PointwiseOperation<Integer>} can; utilities which know they are given
+ * an operation of this type avoid boxing each result, and may reuse the arrays passed to {@link #applyAsInt} between
+ * points, so implementations must not retain them.
+ */
+public interface IntPointwiseOperation extends PointwiseOperation<Integer> {
+
+    /**
+     * Applies this operation to the given colors and in-bounds flags.
+     * @param colors the colors of the images to apply this operation to at the given point
+     * @param inBounds whether each image is in-bounds at the given point. At least one image will always be in-bounds
+     * @return the color generated at this point
+     */
+    int applyAsInt(int[] colors, boolean[] inBounds);
+
+    @Override
+    default Integer apply(int[] colors, boolean[] inBounds) {
+        return applyAsInt(colors, inBounds);
+    }
+
+    /**
+     * Applies this operation to a span of points at once, at each of which every image is in-bounds. Equivalent to
+     * calling {@link #applyAsInt} at each point; operations may override this with a faster implementation over whole
+     * rows.
+     * @param inputs one array per image, holding the colors of that image at each point of the span, starting at 0
+     * @param out the array to write the results to, which must not be one of the input arrays
+     * @param outOffset the index in the output array to write the first result to
+     * @param length the number of points in the span
+     */
+    default void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+        int[] colors = new int[inputs.length];
+        boolean[] inBounds = new boolean[inputs.length];
+        Arrays.fill(inBounds, true);
+        for (int i = 0; i < length; i++) {
+            for (int k = 0; k < inputs.length; k++) {
+                colors[k] = inputs[k][i];
+            }
+            out[outOffset + i] = applyAsInt(colors, inBounds);
+        }
+    }
+
+    /**
+     * @return the provided operation if it is already an {@link IntPointwiseOperation}, or a view of it that unboxes
+     * each result otherwise
+     */
+    static IntPointwiseOperation of(PointwiseOperation<Integer> operation) {
+        if (operation instanceof IntPointwiseOperation intOperation) {
+            return intOperation;
+        }
+        return new IntPointwiseOperation() {
+            @Override
+            public int applyAsInt(int[] colors, boolean[] inBounds) {
+                return operation.apply(colors, inBounds);
+            }
+
+            @Override
+            public int expectedImages() {
+                return operation.expectedImages();
+            }
+        };
+    }
+
+    /**
+     * An {@link IntPointwiseOperation} that can be applied to a single image.
+     */
+    @FunctionalInterface
+    interface Unary extends IntPointwiseOperation, PointwiseOperation.Unary<Integer> {
+        int applyAsInt(int color, boolean isInBounds);
+
+        @Override
+        default Integer apply(int color, boolean isInBounds) {
+            return applyAsInt(color, isInBounds);
+        }
+
+        @Override
+        default int applyAsInt(int[] colors, boolean[] inBounds) {
+            if (colors.length != 1 || inBounds.length != 1)
+                throw new IllegalArgumentException("Unary operation must have exactly one input image");
+            return applyAsInt(colors[0], inBounds[0]);
+        }
+
+        @Override
+        default Integer apply(int[] colors, boolean[] inBounds) {
+            return applyAsInt(colors, inBounds);
+        }
+
+        @Override
+        default void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            if (inputs.length != 1)
+                throw new IllegalArgumentException("Unary operation must have exactly one input image");
+            int[] colors = inputs[0];
+            for (int i = 0; i < length; i++) {
+                out[outOffset + i] = applyAsInt(colors[i], true);
+            }
+        }
+
+        /**
+         * @return the provided operation if it is already an {@link IntPointwiseOperation.Unary}, or a view of it that
+         * unboxes each result otherwise
+         */
+        static IntPointwiseOperation.Unary of(PointwiseOperation.Unary<Integer> operation) {
+            if (operation instanceof IntPointwiseOperation.Unary unary) {
+                return unary;
+            }
+            return operation::apply;
+        }
+
+        /**
+         * @return a new unary operation that always returns the value it is provided
+         */
+        static IntPointwiseOperation.Unary identity() {
+            return (color, isInBounds) -> color;
+        }
+
+        /**
+         * @return a new unary operation that applies first one operation, then another
+         */
+        static IntPointwiseOperation.Unary chain(IntPointwiseOperation.Unary first, IntPointwiseOperation.Unary then) {
+            return (color, isInBounds) -> then.applyAsInt(first.applyAsInt(color, isInBounds), isInBounds);
+        }
+    }
+
+    /**
+     * An {@link IntPointwiseOperation} that can be applied to two images.
+     */
+    @FunctionalInterface
+    interface Binary extends IntPointwiseOperation, PointwiseOperation.Binary<Integer> {
+        int applyAsInt(int firstColor, int secondColor, boolean isFirstInBounds, boolean isSecondInBounds);
+
+        @Override
+        default Integer apply(int firstColor, int secondColor, boolean isFirstInBounds, boolean isSecondInBounds) {
+            return applyAsInt(firstColor, secondColor, isFirstInBounds, isSecondInBounds);
+        }
+
+        @Override
+        default int applyAsInt(int[] colors, boolean[] inBounds) {
+            if (colors.length != 2 || inBounds.length != 2)
+                throw new IllegalArgumentException("Binary operation must have exactly two input images");
+            return applyAsInt(colors[0], colors[1], inBounds[0], inBounds[1]);
+        }
+
+        @Override
+        default Integer apply(int[] colors, boolean[] inBounds) {
+            return applyAsInt(colors, inBounds);
+        }
+
+        @Override
+        default void applyRow(int[][] inputs, int[] out, int outOffset, int length) {
+            if (inputs.length != 2)
+                throw new IllegalArgumentException("Binary operation must have exactly two input images");
+            int[] first = inputs[0];
+            int[] second = inputs[1];
+            for (int i = 0; i < length; i++) {
+                out[outOffset + i] = applyAsInt(first[i], second[i], true, true);
+            }
+        }
+    }
+
+    /**
+     * An {@link IntPointwiseOperation} that can be applied to any number of images.
+     */
+    @FunctionalInterface
+    interface Any extends IntPointwiseOperation, PointwiseOperation.Any<Integer> {
+        @Override
+        default Integer apply(int[] colors, boolean[] inBounds) {
+            return applyAsInt(colors, inBounds);
+        }
+
+        /**
+         * @return a new {@link IntPointwiseOperation.Unary} operation that applies this operation to the image it is
+         * provided, reusing per-thread arrays to pass the color to this operation
+         */
+        @Override
+        default IntPointwiseOperation.Unary unary() {
+            ThreadLocal<OperationScratch> scratch = ThreadLocal.withInitial(() -> new OperationScratch(1));
+            return (color, isInBounds) -> {
+                OperationScratch s = scratch.get();
+                s.colors[0] = color;
+                s.inBounds[0] = isInBounds;
+                return applyAsInt(s.colors, s.inBounds);
+            };
+        }
+
+        /**
+         * @return a new {@link IntPointwiseOperation.Binary} operation that applies this operation to the two images it
+         * is provided, reusing per-thread arrays to pass the colors to this operation
+         */
+        @Override
+        default IntPointwiseOperation.Binary binary() {
+            ThreadLocal<OperationScratch> scratch = ThreadLocal.withInitial(() -> new OperationScratch(2));
+            return (firstColor, secondColor, isFirstInBounds, isSecondInBounds) -> {
+                OperationScratch s = scratch.get();
+                s.colors[0] = firstColor;
+                s.colors[1] = secondColor;
+                s.inBounds[0] = isFirstInBounds;
+                s.inBounds[1] = isSecondInBounds;
+                return applyAsInt(s.colors, s.inBounds);
+            };
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.colors.operations;
+
+/**
+ * Arrays reused to pass colors to an operation. Each instance must only be used by a single thread.
+ */
+final class OperationScratch {
+    final int[] colors;
+    final boolean[] inBounds;
+
+    OperationScratch(int size) {
+        this.colors = new int[size];
+        this.inBounds = new boolean[size];
+    }
+}
@@ -13,7 +13,7 @@
  * A single-image pointwise operation that maps from a palette sample number to a color.
  */
 @SuppressWarnings("unused")
-public class PaletteToColorOperation implements PointwiseOperation.Unary<Integer> {
+public class PaletteToColorOperation implements IntPointwiseOperation.Unary {
     private final Palette palette;
 
     public PaletteToColorOperation(Palette palette) {
@@ -25,7 +25,7 @@ public Palette getPalette() {
     }
 
     @Override
-    public Integer apply(int color, boolean isInBounds) {
+    public int applyAsInt(int color, boolean isInBounds) {
         if (!isInBounds)
             return 0;
         int value = ((color >> 16 & 0xFF) + (color >> 8 & 0xFF) + (color & 0xFF)) / 3;
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.mojang.serialization.JsonOps;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceCache;
+import dev.lukebemish.dynamicassetgenerator.impl.mixin.PathPackResourcesAccessor;
+import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
+import dev.lukebemish.dynamicassetgenerator.impl.util.CacheWriter;
+import dev.lukebemish.dynamicassetgenerator.impl.util.InvisibleProviderUtils;
+import dev.lukebemish.dynamicassetgenerator.impl.util.KeyedCacheStore;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.FilePackResources;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.resources.IoSupplier;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A record of every output of a {@link ResourceCache} held in its keyed cache, alongside a fingerprint of everything
+ * the outputs could depend on: mod versions, the configuration, and the packs the cache can read, including those of
+ * any caches it depends on. Folder packs on disk are fingerprinted by the size and modification time of their files;
+ * other packs, such as those provided by mods, by their ID, relying on mod versions to catch changes. When the
+ * fingerprint matches the manifest written last time, the outputs are served from the keyed cache without planning any
+ * sources or computing any cache keys. Caches which can read from zip packs or invisible resource providers never use a
+ * manifest, as their contents cannot be fingerprinted.
+ */
+public final class CacheManifest {
+    private CacheManifest() {}
+
+    private static final String MANIFEST_FILE = "manifest.txt";
+    private static final Map<ResourceLocation, Optional<String>> FINGERPRINTS = new ConcurrentHashMap<>();
+
+    public static boolean enabled() {
+        return DynamicAssetGenerator.getConfig().cacheManifest() && DynamicAssetGenerator.getConfig().keyedCache();
+    }
+
+    public static void reset(ResourceCache cache) {
+        FINGERPRINTS.remove(cache.getName());
+    }
+
+    /**
+     * Loads the outputs of a cache from its manifest, if the manifest is up to date.
+     * @param cache the cache to load outputs for
+     * @return the outputs of the cache, or null if they must be planned normally
+     */
+    public static @Nullable Map<ResourceLocation, IoSupplier<InputStream>> load(ResourceCache cache) {
+        if (!enabled()) {
+            return null;
+        }
+        String fingerprint = fingerprint(cache);
+        if (fingerprint == null) {
+            return null;
+        }
+        Path path = DynamicAssetGenerator.cache(cache.getName(), true).resolve(MANIFEST_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(fingerprint)) {
+                return null;
+            }
+            KeyedCacheStore store = KeyedCacheStore.of(cache.getName());
+            Map<ResourceLocation, IoSupplier<InputStream>> outputs = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                int split = line.indexOf(' ');
+                if (split < 0) {
+                    return null;
+                }
+                ResourceLocation location = new ResourceLocation(line.substring(split + 1));
+                KeyedCacheStore.Entry entry = store.find(location, HashCode.fromString(line.substring(0, split)));
+                if (entry == null) {
+                    return null;
+                }
+                outputs.put(location, () -> {
+                    try {
+                        return store.open(entry);
+                    } catch (KeyedCacheStore.CorruptEntryException e) {
+                        // Plan normally next time, which regenerates the corrupt entry
+                        Files.deleteIfExists(path);
+                        throw e;
+                    }
+                });
+            }
+            if (DynamicAssetGenerator.TIME_RESOURCES) {
+                DynamicAssetGenerator.LOGGER.info("Loaded {} outputs for {} from its manifest", outputs.size(), cache.getName());
+            }
+            return outputs;
+        } catch (IOException | RuntimeException e) {
+            DynamicAssetGenerator.LOGGER.warn("Could not read manifest for cache {}; planning outputs normally", cache.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts recording the outputs of a cache as they are planned and stored.
+     * @param cache the cache being planned
+     * @return a builder to record outputs with, or null if no manifest should be written
+     */
+    public static @Nullable Builder builder(ResourceCache cache) {
+        if (!enabled()) {
+            return null;
+        }
+        String fingerprint = fingerprint(cache);
+        if (fingerprint == null) {
+            return null;
+        }
+        return new Builder(cache.getName(), fingerprint);
+    }
+
+    private static @Nullable String fingerprint(ResourceCache cache) {
+        return fingerprint(cache, new HashSet<>());
+    }
+
+    private static @Nullable String fingerprint(ResourceCache cache, Set<ResourceLocation> visiting) {
+        Optional<String> existing = FINGERPRINTS.get(cache.getName());
+        if (existing != null) {
+            return existing.orElse(null);
+        }
+        if (!visiting.add(cache.getName())) {
+            return null;
+        }
+        String computed;
+        try {
+            computed = computeFingerprint(cache, visiting);
+        } catch (IOException | RuntimeException e) {
+            DynamicAssetGenerator.LOGGER.debug("Could not fingerprint inputs of cache {}", cache.getName(), e);
+            computed = null;
+        }
+        visiting.remove(cache.getName());
+        FINGERPRINTS.put(cache.getName(), Optional.ofNullable(computed));
+        return computed;
+    }
+
+    private static @Nullable String computeFingerprint(ResourceCache cache, Set<ResourceLocation> visiting) throws IOException {
+        if (!InvisibleProviderUtils.INVISIBLE_RESOURCE_PROVIDERS.isEmpty()) {
+            return null;
+        }
+        ResourceFinder finder = ResourceFinder.INSTANCES[cache.getPackType().ordinal()];
+        if (finder == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(cache.getName().toString(), StandardCharsets.UTF_8);
+        hasher.putString(Services.PLATFORM.getModVersion(), StandardCharsets.UTF_8);
+        hasher.putString(ModConfig.CODEC.encodeStart(JsonOps.INSTANCE, DynamicAssetGenerator.getConfig()).result().map(Object::toString).orElse(""), StandardCharsets.UTF_8);
+        new TreeMap<>(Services.PLATFORM.getModVersions()).forEach((id, version) -> {
+            hasher.putString(id, StandardCharsets.UTF_8);
+            hasher.putString(version, StandardCharsets.UTF_8);
+        });
+        List<PackResources> packs;
+        try (Stream<PackResources> stream = finder.getPacks()) {
+            packs = Services.DEGROUPER.unpackPacks(stream.filter(pack -> cache.allowAccess(pack.packId()))).toList();
+        }
+        for (PackResources pack : packs) {
+            hasher.putString(pack.packId(), StandardCharsets.UTF_8);
+            hasher.putString(pack.getClass().getName(), StandardCharsets.UTF_8);
+            if (pack instanceof GeneratedPackResources generated) {
+                String dependency = fingerprint(generated.cache(), visiting);
+                if (dependency == null) {
+                    return null;
+                }
+                hasher.putString(dependency, StandardCharsets.UTF_8);
+            } else if (pack instanceof FilePackResources) {
+                // Zip packs do not expose the file they were read from, so changes to them cannot be detected
+                return null;
+            } else if (pack instanceof PathPackResourcesAccessor accessor) {
+                Path root = accessor.dynamic_asset_generator$getRoot();
+                // Packs within mod jars are covered by the mod's version
+                if (root.getFileSystem() == FileSystems.getDefault()) {
+                    stamp(hasher, root);
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void stamp(Hasher hasher, Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        List<String> stamps = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    stamps.add(root.relativize(file) + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+                }
+            }
+        }
+        Collections.sort(stamps);
+        stamps.forEach(stamp -> hasher.putString(stamp, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Collects the outputs of a cache as they are stored in its keyed cache, and writes a manifest once every output
+     * has been stored.
+     */
+    public static final class Builder {
+        private final ResourceLocation cacheName;
+        private final String fingerprint;
+        private final Map<ResourceLocation, HashCode> keys = new ConcurrentHashMap<>();
+        private final Set<ResourceLocation> stored = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean invalid = new AtomicBoolean();
+        private final AtomicBoolean written = new AtomicBoolean();
+        private final AtomicInteger expected = new AtomicInteger(-1);
+
+        private Builder(ResourceLocation cacheName, String fingerprint) {
+            this.cacheName = cacheName;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Records the key an output is stored under.
+         * @param location the location of the output
+         * @param key the digest of the output's cache key, or null if the output cannot be cached
+         * @param alreadyStored whether the output is already held in the keyed cache
+         */
+        public void planned(ResourceLocation location, @Nullable HashCode key, boolean alreadyStored) {
+            if (key == null) {
+                invalid.set(true);
+                return;
+            }
+            keys.put(location, key);
+            if (alreadyStored) {
+                stored(location);
+            }
+        }
+
+        /**
+         * Records that an output has been queued to be stored in the keyed cache.
+         * @param location the location of the output
+         */
+        public void stored(ResourceLocation location) {
+            stored.add(location);
+            tryWrite();
+        }
+
+        /**
+         * Records that an output could not be planned, so no manifest can be written.
+         */
+        public void invalidate() {
+            invalid.set(true);
+        }
+
+        /**
+         * Records that every output has been planned.
+         * @param count the number of outputs planned
+         */
+        public void complete(int count) {
+            if (count != keys.size()) {
+                invalid.set(true);
+            }
+            expected.set(count);
+            tryWrite();
+        }
+
+        private void tryWrite() {
+            int count = expected.get();
+            if (invalid.get() || count < 0 || stored.size() < count || !written.compareAndSet(false, true)) {
+                return;
+            }
+            StringBuilder builder = new StringBuilder(fingerprint).append('\n');
+            keys.forEach((location, key) -> builder.append(key).append(' ').append(location).append('\n'));
+            // Queued after every output it lists, so it is never published before them
+            CacheWriter.write(DynamicAssetGenerator.cache(cacheName, true).resolve(MANIFEST_FILE), builder.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaJsonOps;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import net.minecraft.resources.ResourceLocation;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encodes values to compact structural digests. Any value nested within the encoded value which is encoded with a codec
+ * wrapped by {@link #merkle} is replaced by its own digest, which is computed once per instance and contents of attached
+ * data and then memoized, so digests of deep trees are built bottom-up instead of re-encoding every subtree at every
+ * level.
+ * Digests are memoized separately for each cache, until that cache is reset.
+ */
+public final class DigestJsonOps extends CacheMetaJsonOps {
+    private static final Map<ResourceLocation, Memo> MEMOS = new ConcurrentHashMap<>();
+    private static final Object NULL = new Object();
+    private static final Gson GSON = new GsonBuilder().setLenient().create();
+
+    private final Memo memo;
+    private final @Nullable Object root;
+    private boolean rootEncoded = false;
+
+    /**
+     * @param context the context digests are computed in; digests are memoized for the cache of this context
+     */
+    public DigestJsonOps(ResourceGenerationContext context) {
+        this.memo = MEMOS.computeIfAbsent(context.getCacheName(), k -> new Memo());
+        this.root = null;
+    }
+
+    private DigestJsonOps(DigestJsonOps parent, Object root) {
+        super(parent);
+        this.memo = parent.memo;
+        this.root = root;
+    }
+
+    /**
+     * Computes the digest of a value, given the data currently attached to this ops object.
+     * @param codec the codec to encode the value with
+     * @param value the value to digest
+     * @return the digest, or an error if the value or anything nested within it could not be encoded
+     */
+    public <A> DataResult<String> digest(Codec<A> codec, A value) {
+        Map<List<Object>, DataResult<String>> results = memo.results(value);
+        List<Object> key = Memo.key(dataSnapshot());
+        DataResult<String> result = results.get(key);
+        if (result == null) {
+            DigestJsonOps ops = new DigestJsonOps(this, value);
+            result = codec.encodeStart(ops, value).map(json -> hash(GSON.toJson(json)));
+            // Errors are captured eagerly, so that the memo does not retain whatever the error message refers to
+            result = result.error().<DataResult<String>>map(error -> {
+                String message = error.message();
+                return DataResult.error(() -> message);
+            }).orElse(result);
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return a fixed-size hex digest of the provided string
+     */
+    public static String hash(String string) {
+        return Hashing.sha256().hashString(string, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Wraps a codec so that, when encoding with a {@link DigestJsonOps}, values it encodes below the top level are
+     * replaced by their memoized digests. When decoding with {@link PlanInterner#ops()}, values it decodes are interned.
+     * @param codec the codec to wrap
+     * @return a codec that decodes and encodes identically to the provided one outside of digesting
+     */
+    public static <A> Codec<A> merkle(Codec<A> codec) {
+        return new Codec<>() {
+            @Override
+            public <T> DataResult<Pair<A, T>> decode(DynamicOps<T> ops, T input) {
+                DataResult<Pair<A, T>> result = codec.decode(ops, input);
+                if (ops instanceof PlanInterner.Ops interning) {
+                    return result.map(pair -> pair.mapFirst(value -> interning.intern(this, value)));
+                }
+                return result;
+            }
+
+            @Override
+            public <T> DataResult<T> encode(A input, DynamicOps<T> ops, T prefix) {
+                if (ops instanceof DigestJsonOps digestOps) {
+                    if (digestOps.root == input && !digestOps.rootEncoded) {
+                        digestOps.rootEncoded = true;
+                        return codec.encode(input, ops, prefix);
+                    }
+                    return digestOps.digest(this, input).flatMap(digest -> ops.mergeToPrimitive(prefix, ops.createString(digest)));
+                }
+                return codec.encode(input, ops, prefix);
+            }
+
+            @Override
+            public String toString() {
+                return "Merkle[" + codec + "]";
+            }
+        };
+    }
+
+    /**
+     * Clears digests memoized for a cache; should be called whenever the data its digests may depend on could have
+     * changed.
+     * @param context a context in the cache to clear digests for
+     */
+    public static void clearMemo(ResourceGenerationContext context) {
+        MEMOS.remove(context.getCacheName());
+    }
+
+    /**
+     * Memoized digests, keyed by the identity of the digested value and then by the contents of the attached data.
+     * Values are weakly referenced, so they are not retained by the memo once nothing else refers to them. Data is keyed
+     * by a snapshot of what it holds rather than by identity, so that values digested with equal data, such as a subtree
+     * shared by several outputs each with their own data holder, share a memoized digest, and so that data changed after
+     * a digest was memoized does not return that digest.
+     */
+    private static final class Memo {
+        private final ConcurrentMap<Object, Map<List<Object>, DataResult<String>>> results = new MapMaker().weakKeys().makeMap();
+
+        Map<List<Object>, DataResult<String>> results(Object value) {
+            return results.computeIfAbsent(value, k -> new ConcurrentHashMap<>());
+        }
+
+        static List<Object> key(Map<Class<?>, Object> data) {
+            List<Map.Entry<Class<?>, Object>> entries = new ArrayList<>(data.entrySet());
+            entries.sort(Comparator.comparing(e -> e.getKey().getName()));
+            List<Object> key = new ArrayList<>(entries.size() * 2);
+            for (Map.Entry<Class<?>, Object> entry : entries) {
+                key.add(entry.getKey());
+                key.add(snapshot(entry.getValue()));
+            }
+            return key;
+        }
+
+        private static Object snapshot(@Nullable Object data) {
+            if (data == null) {
+                return NULL;
+            }
+            if (data instanceof TexSourceDataHolder holder) {
+                return holder.snapshot();
+            }
+            return data;
+        }
+    }
+}
@@ -11,6 +11,7 @@
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerator;
 import dev.lukebemish.dynamicassetgenerator.api.generators.DummyGenerator;
 import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
+import dev.lukebemish.dynamicassetgenerator.impl.util.CacheGarbageCollector;
 import net.minecraft.SharedConstants;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
@@ -65,6 +66,7 @@ public static void init() {
         }
         ResourceGenerator.register(new ResourceLocation(MOD_ID,"dummy"), DummyGenerator.CODEC);
         ResourceCache.register(new BuiltinDataResourceCache(new ResourceLocation(MOD_ID, "builtin_data")), Pack.Position.TOP);
+        CacheGarbageCollector.start();
     }
 
     public static Path cache(ResourceLocation cacheKey, boolean keyed) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import dev.lukebemish.dynamicassetgenerator.api.ResourceCache;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.resources.IoSupplier;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Generates every resource a cache can provide ahead of time on a bounded pool of worker threads, instead of lazily
+ * whenever each resource is first opened. A cache starts generating once every cache it depends on has finished, so
+ * its workers are not left waiting on resources its dependencies have yet to produce. Resources requested before their
+ * worker reaches them are generated by the requesting thread instead. Generation starts when a reload is created, once
+ * every pack taking part in it has been opened. Caches whose dependencies are circular are left to generate lazily.
+ * <p>
+ * Work queued on the pool is never waited on while it is still queued: whichever thread needs a cache's resources or a
+ * resource first, worker or not, claims and runs that work itself, so workers cannot starve waiting for tasks queued
+ * behind them.
+ * <p>
+ * Each generated resource is held in memory only until it is first read; later reads are served by the resource it
+ * wraps, as they would be without eager generation. A cache is forgotten once its generation finishes.
+ */
+public final class EagerGeneration {
+    private EagerGeneration() {}
+
+    private static final Map<ResourceLocation, CompletableFuture<Void>> IN_PROGRESS = new ConcurrentHashMap<>();
+    private static volatile ExecutorService executor;
+
+    public static boolean enabled() {
+        return DynamicAssetGenerator.getConfig().eagerGeneration();
+    }
+
+    /**
+     * Starts eager generation for every generated pack among the packs of a reload that is about to be prepared, in an
+     * order such that each cache starts after any it depends on.
+     * @param packs the packs being reloaded
+     */
+    public static void prepare(List<PackResources> packs) {
+        if (!enabled()) {
+            return;
+        }
+        List<GeneratedPackResources> remaining = new ArrayList<>();
+        for (PackResources pack : packs) {
+            if (pack instanceof GeneratedPackResources generated) {
+                remaining.add(generated);
+            }
+        }
+        while (!remaining.isEmpty()) {
+            Set<ResourceLocation> pending = new HashSet<>();
+            remaining.forEach(pack -> pending.add(pack.cache().getName()));
+            List<GeneratedPackResources> ready = remaining.stream()
+                .filter(pack -> pack.cache().getDependencies().stream().noneMatch(pending::contains))
+                .toList();
+            if (ready.isEmpty()) {
+                DynamicAssetGenerator.LOGGER.warn("Generated packs {} have circular dependencies, or depend on packs that do; they will be generated lazily", pending);
+                return;
+            }
+            ready.forEach(GeneratedPackResources::startEagerGeneration);
+            remaining.removeAll(ready);
+        }
+    }
+
+    /**
+     * Wraps the resources of a cache so that they may be generated eagerly, and schedules their generation.
+     * @param cache the cache the resources belong to
+     * @param streams supplies the lazy resources of the cache; called once, on a worker thread or the first thread to
+     *                request the resources
+     * @return the wrapped resources, available once they have been planned
+     */
+    public static EagerStreams start(ResourceCache cache, Supplier<Map<ResourceLocation, IoSupplier<InputStream>>> streams) {
+        ExecutorService pool = executor();
+        CompletableFuture<?>[] dependencies = cache.getDependencies().stream()
+            .map(IN_PROGRESS::get)
+            .filter(Objects::nonNull)
+            .toArray(CompletableFuture[]::new);
+        EagerStreams wrapped = new EagerStreams(streams);
+        CompletableFuture.allOf(dependencies)
+            .handle((ignored, t) -> null)
+            .thenRunAsync(wrapped::run, pool);
+        CompletableFuture<Void> done = wrapped.result.thenCompose(outputs -> {
+            long startTime = System.nanoTime();
+            CompletableFuture<?>[] tasks = outputs.values().stream()
+                .filter(EagerResource.class::isInstance)
+                .map(s -> CompletableFuture.runAsync(((EagerResource) s)::run, pool))
+                .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(tasks).whenComplete((ignored, t) -> {
+                if (DynamicAssetGenerator.TIME_RESOURCES) {
+                    DynamicAssetGenerator.LOGGER.info("Eagerly generated {} resources for {} in {} ms", tasks.length, cache.getName(), (System.nanoTime() - startTime) / 1_000_000);
+                }
+            });
+        });
+        IN_PROGRESS.put(cache.getName(), done);
+        done.whenComplete((ignored, t) -> IN_PROGRESS.remove(cache.getName(), done));
+        return wrapped;
+    }
+
+    private static ExecutorService executor() {
+        if (executor == null) {
+            synchronized (EagerGeneration.class) {
+                if (executor == null) {
+                    int threads = DynamicAssetGenerator.getConfig().generationThreads();
+                    if (threads <= 0) {
+                        threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+                    }
+                    AtomicInteger count = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, r -> {
+                        Thread thread = new Thread(r, "DynamicAssetGenerator-Worker-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * The resources of a cache being generated eagerly.
+     */
+    public static final class EagerStreams {
+        private final Supplier<Map<ResourceLocation, IoSupplier<InputStream>>> delegate;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Map<ResourceLocation, IoSupplier<InputStream>>> result = new CompletableFuture<>();
+
+        private EagerStreams(Supplier<Map<ResourceLocation, IoSupplier<InputStream>>> delegate) {
+            this.delegate = delegate;
+        }
+
+        private void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Map<ResourceLocation, IoSupplier<InputStream>> outputs = new HashMap<>();
+                delegate.get().forEach((rl, supplier) -> outputs.put(rl, supplier == null ? null : new EagerResource(supplier)));
+                result.complete(outputs);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        /**
+         * @return the wrapped resources, planning them on the calling thread if no worker has started to yet
+         */
+        public Map<ResourceLocation, IoSupplier<InputStream>> get() {
+            run();
+            return result.join();
+        }
+    }
+
+    private static final class EagerResource implements IoSupplier<InputStream> {
+        private final IoSupplier<InputStream> delegate;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Held only until the first read takes them; later reads are served by the delegate
+        private final AtomicReference<byte @Nullable []> bytes = new AtomicReference<>();
+        private volatile @Nullable IOException failure;
+
+        private EagerResource(IoSupplier<InputStream> delegate) {
+            this.delegate = delegate;
+        }
+
+        private void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try (InputStream stream = delegate.get()) {
+                bytes.set(stream.readAllBytes());
+            } catch (IOException e) {
+                failure = e;
+            } catch (Throwable t) {
+                failure = new IOException(t);
+            } finally {
+                done.complete(null);
+            }
+        }
+
+        @Override
+        public @NonNull InputStream get() throws IOException {
+            run();
+            done.join();
+            IOException e = failure;
+            if (e != null) {
+                throw e;
+            }
+            byte[] taken = bytes.getAndSet(null);
+            if (taken != null) {
+                return new ByteArrayInputStream(taken);
+            }
+            return delegate.get();
+        }
+    }
+}
@@ -17,14 +17,15 @@
 import org.jspecify.annotations.Nullable;
 
 import java.io.InputStream;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class GeneratedPackResources implements PackResources {
 
     private final ResourceCache cache;
     private @Nullable Map<ResourceLocation, IoSupplier<InputStream>> streams;
+    private EagerGeneration.@Nullable EagerStreams eagerStreams;
+    // Namespace to resources sorted by path, so all resources in a directory form a contiguous range.
+    private @Nullable Map<String, NavigableMap<String, IoSupplier<InputStream>>> index;
     private final String name;
 
     public GeneratedPackResources(String name, ResourceCache cache) {
@@ -38,13 +39,36 @@ public boolean isBuiltin() {
         return true;
     }
 
-    private Map<ResourceLocation, IoSupplier<InputStream>> getStreams() {
+    public ResourceCache cache() {
+        return cache;
+    }
+
+    synchronized void startEagerGeneration() {
+        if (streams == null && eagerStreams == null) {
+            eagerStreams = EagerGeneration.start(cache, cache::getResources);
+        }
+    }
+
+    private synchronized Map<ResourceLocation, IoSupplier<InputStream>> getStreams() {
         if (streams == null) {
-            streams = cache.getResources();
+            streams = eagerStreams != null ? eagerStreams.get() : cache.getResources();
+            eagerStreams = null;
+            Map<String, NavigableMap<String, IoSupplier<InputStream>>> newIndex = new HashMap<>();
+            streams.forEach((rl, supplier) -> {
+                if (supplier != null) {
+                    newIndex.computeIfAbsent(rl.getNamespace(), k -> new TreeMap<>()).put(rl.getPath(), supplier);
+                }
+            });
+            index = newIndex;
         }
         return streams;
     }
 
+    private synchronized Map<String, NavigableMap<String, IoSupplier<InputStream>>> getIndex() {
+        getStreams();
+        return index;
+    }
+
     @Nullable
     @Override
     public IoSupplier<InputStream> getRootResource(String @NonNull ... strings) {
@@ -74,10 +98,10 @@ public void listResources(@NonNull PackType packType, @NonNull String namespace,
                 return;
             }
             if (packType == cache.getPackType()) {
-                for (ResourceLocation key : getStreams().keySet()) {
-                    if (key.getPath().startsWith(directory) && key.getNamespace().equals(namespace) && getStreams().get(key) != null) {
-                        resourceOutput.accept(key, getStreams().get(key));
-                    }
+                NavigableMap<String, IoSupplier<InputStream>> paths = getIndex().get(namespace);
+                if (paths != null) {
+                    paths.subMap(directory, true, directory + Character.MAX_VALUE, false)
+                        .forEach((path, supplier) -> resourceOutput.accept(new ResourceLocation(namespace, path), supplier));
                 }
             }
         }
@@ -89,13 +113,10 @@ public void listResources(@NonNull PackType packType, @NonNull String namespace,
             if (lock.reentrant()) {
                 return Set.of();
             }
-            Set<String> namespaces = new HashSet<>();
             if (type == cache.getPackType()) {
-                for (ResourceLocation key : getStreams().keySet()) {
-                    namespaces.add(key.getNamespace());
-                }
+                return Collections.unmodifiableSet(getIndex().keySet());
             }
-            return namespaces;
+            return Set.of();
         }
     }
 
@@ -35,10 +35,12 @@ public class JsonResourceGeneratorReader implements PathAwareInputStreamSource,
     public JsonResourceGeneratorReader(Function<ResourceGenerationContext, Map<ResourceLocation, String>> mapSupplier) {
         this.mapSupplier = context -> {
             var map = mapSupplier.apply(context);
+            PlanInterner interner = PlanInterner.of(context);
             Map<ResourceLocation, ResourceGenerator> outMap = new HashMap<>();
             map.forEach((rl, str) -> {
                 try {
-                    ResourceGenerator json = fromJson(str);
+                    ResourceGenerator read = fromJson(str, interner.ops());
+                    ResourceGenerator json = read == null ? null : interner.intern(ResourceGenerator.CODEC, read);
                     if (json != null && !json.getLocations(context).isEmpty()) {
                         json.getLocations(context).forEach(localRl -> outMap.put(localRl, json));
                     }
@@ -51,9 +53,9 @@ public JsonResourceGeneratorReader(Function<ResourceGenerationContext, Map<Resou
     }
 
     @Nullable
-    static ResourceGenerator fromJson(String json) {
+    static ResourceGenerator fromJson(String json, JsonOps ops) {
         JsonObject jsonObject = GSON.fromJson(json, JsonObject.class);
-        return ResourceGenerator.CODEC.parse(JsonOps.INSTANCE, jsonObject).getOrThrow(false, s->{});
+        return ResourceGenerator.CODEC.parse(ops, jsonObject).getOrThrow(false, s->{});
     }
 
     @Override
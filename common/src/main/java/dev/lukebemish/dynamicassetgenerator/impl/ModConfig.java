@@ -13,18 +13,32 @@
 import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
+import net.minecraft.util.StringRepresentable;
 
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Locale;
 
-public record ModConfig(boolean fullCache, int paletteForceClusteringCutoff, boolean timeResources, boolean keyedCache) {
+public record ModConfig(boolean fullCache, int paletteForceClusteringCutoff, boolean timeResources, boolean keyedCache, int textureCacheBudgetMb, boolean eagerGeneration, int generationThreads, boolean parallelSpritePreparation, int pngCompressionLevel, PngFilter pngFilter, SpriteCacheFormat spriteCacheFormat, int cacheBudgetMb, int cacheMaxIdleSessions, boolean cacheManifest, boolean incrementalReload, int parallelPixelThreshold) {
     public static final Codec<ModConfig> CODEC = RecordCodecBuilder.create(instance -> instance.group(
         Codec.BOOL.fieldOf("full_cache").forGetter(ModConfig::fullCache),
         Codec.INT.fieldOf("palette_extraction_force_clustering_cutoff").forGetter(ModConfig::paletteForceClusteringCutoff),
         Codec.BOOL.fieldOf("time_resources").forGetter(ModConfig::timeResources),
-        Codec.BOOL.fieldOf("keyed_cache").forGetter(ModConfig::keyedCache)
+        Codec.BOOL.fieldOf("keyed_cache").forGetter(ModConfig::keyedCache),
+        Codec.INT.optionalFieldOf("texture_cache_budget_mb", 0).forGetter(ModConfig::textureCacheBudgetMb),
+        Codec.BOOL.optionalFieldOf("eager_generation", false).forGetter(ModConfig::eagerGeneration),
+        Codec.INT.optionalFieldOf("generation_threads", 0).forGetter(ModConfig::generationThreads),
+        Codec.BOOL.optionalFieldOf("parallel_sprite_preparation", false).forGetter(ModConfig::parallelSpritePreparation),
+        Codec.intRange(-1, 9).optionalFieldOf("png_compression_level", -1).forGetter(ModConfig::pngCompressionLevel),
+        StringRepresentable.fromEnum(PngFilter::values).optionalFieldOf("png_filter", PngFilter.ADAPTIVE).forGetter(ModConfig::pngFilter),
+        StringRepresentable.fromEnum(SpriteCacheFormat::values).optionalFieldOf("sprite_cache_format", SpriteCacheFormat.PNG).forGetter(ModConfig::spriteCacheFormat),
+        Codec.INT.optionalFieldOf("cache_budget_mb", 0).forGetter(ModConfig::cacheBudgetMb),
+        Codec.INT.optionalFieldOf("cache_max_idle_sessions", 10).forGetter(ModConfig::cacheMaxIdleSessions),
+        Codec.BOOL.optionalFieldOf("cache_manifest", false).forGetter(ModConfig::cacheManifest),
+        Codec.BOOL.optionalFieldOf("incremental_reload", false).forGetter(ModConfig::incrementalReload),
+        Codec.intRange(0, Integer.MAX_VALUE).optionalFieldOf("parallel_pixel_threshold", 4096).forGetter(ModConfig::parallelPixelThreshold)
     ).apply(instance, ModConfig::new));
     public static final Gson GSON = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
     public static final Path FULL_PATH = Services.PLATFORM.getConfigFolder().resolve(DynamicAssetGenerator.MOD_ID+".json");
@@ -77,6 +91,37 @@ private static void checkExistence() throws IOException {
     }
 
     private static ModConfig getDefault() {
-        return new ModConfig(false, 1_000_000, false, true);
+        return new ModConfig(false, 1_000_000, false, true, 0, false, 0, false, -1, PngFilter.ADAPTIVE, SpriteCacheFormat.PNG, 0, 10, false, false, 4096);
+    }
+
+    /**
+     * The row filter used when encoding generated PNG images; {@link #ADAPTIVE} picks the best filter for each row.
+     */
+    public enum PngFilter implements StringRepresentable {
+        NONE,
+        SUB,
+        UP,
+        AVERAGE,
+        PAETH,
+        ADAPTIVE;
+
+        @Override
+        public String getSerializedName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The format sprite provider outputs are stored in when cached; raw formats skip PNG decoding when loaded.
+     */
+    public enum SpriteCacheFormat implements StringRepresentable {
+        PNG,
+        RAW,
+        RAW_DEFLATE;
+
+        @Override
+        public String getSerializedName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
     }
 }
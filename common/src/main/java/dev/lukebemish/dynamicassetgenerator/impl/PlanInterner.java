@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.JsonOps;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash-conses planned sources within a cache. Each value is keyed by its structural digest, as computed by
+ * {@link DigestJsonOps}; the first value planned with a given digest is kept, and any structurally identical value
+ * planned later is replaced by it. Values are never rebuilt, so the instance returned is always one that was planned.
+ * <p>
+ * Sources decoded with {@link #ops()} are interned at every node wrapped by {@link DigestJsonOps#merkle} as they are
+ * decoded, so each node is built from the canonical instances of its children, and identical subtrees of different
+ * sources are shared as a single instance. Since children are canonical before their parent is digested, digesting the
+ * parent reuses their memoized digests. Sources built in code are only interned as a whole.
+ */
+public final class PlanInterner {
+    private static final Map<ResourceLocation, PlanInterner> MULTI_CACHE = new ConcurrentHashMap<>();
+
+    private final ResourceGenerationContext context;
+    private final Map<NodeKey, Object> nodes = new ConcurrentHashMap<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private PlanInterner(ResourceGenerationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @return the interner shared by everything planned in the provided context's cache until it is reset
+     */
+    public static PlanInterner of(ResourceGenerationContext context) {
+        return MULTI_CACHE.computeIfAbsent(context.getCacheName(), k -> new PlanInterner(context));
+    }
+
+    /**
+     * @return JSON ops which intern every merkle node of the values decoded with them into this interner
+     */
+    public JsonOps ops() {
+        return new Ops(this);
+    }
+
+    public static void reset(ResourceGenerationContext context) {
+        MULTI_CACHE.remove(context.getCacheName());
+    }
+
+    /**
+     * Canonicalizes a value, returning an already planned value with the same digest if there is one.
+     * @param codec the codec to digest the value with
+     * @param value the value to canonicalize
+     * @return a structurally identical value planned earlier, or the provided value if there is none or it cannot be
+     * digested
+     */
+    @SuppressWarnings("unchecked")
+    public <A> A intern(Codec<A> codec, A value) {
+        lookups.incrementAndGet();
+        DataResult<String> digest = new DigestJsonOps(context).digest(codec, value);
+        if (digest.result().isEmpty()) {
+            failures.incrementAndGet();
+            DynamicAssetGenerator.LOGGER.debug("Could not digest planned source; it will not be shared: {}", digest.error().map(DataResult.PartialResult::message).orElse(""));
+            return value;
+        }
+        return (A) nodes.computeIfAbsent(new NodeKey(codec, digest.result().get()), k -> value);
+    }
+
+    /**
+     * Logs how many of the values planned so far were shared with an existing value.
+     * @param cacheName the name of the cache being reported on
+     */
+    public void report(ResourceLocation cacheName) {
+        long total = lookups.get();
+        if (total == 0) {
+            return;
+        }
+        int unique = nodes.size();
+        long failed = failures.get();
+        String message = "Planned sources for {}: {} sources, {} unique, {} not shareable ({}% deduplicated)";
+        long percent = (total - unique - failed) * 100 / total;
+        if (DynamicAssetGenerator.TIME_RESOURCES) {
+            DynamicAssetGenerator.LOGGER.info(message, cacheName, total, unique, failed, percent);
+        } else {
+            DynamicAssetGenerator.LOGGER.debug(message, cacheName, total, unique, failed, percent);
+        }
+    }
+
+    /**
+     * JSON ops which intern the values decoded by merkle codecs as they are decoded.
+     */
+    static final class Ops extends JsonOps {
+        private final PlanInterner interner;
+
+        private Ops(PlanInterner interner) {
+            super(false);
+            this.interner = interner;
+        }
+
+        <A> A intern(Codec<A> codec, A value) {
+            return interner.intern(codec, value);
+        }
+    }
+
+    private record NodeKey(Codec<?> codec, String digest) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NodeKey other && other.codec == this.codec && other.digest.equals(this.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(codec) + digest.hashCode();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.google.common.base.Suppliers;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
+import dev.lukebemish.dynamicassetgenerator.impl.util.InputRecorder;
+import dev.lukebemish.dynamicassetgenerator.impl.util.InvisibleProviderUtils;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.resources.IoSupplier;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An index of the resources available from a list of packs, shared by every resource source created over the same
+ * packs. The packs a location is found in are looked up once, the first time the location is requested, and then
+ * shared for as long as the list of packs stays the same, which is until the next reload; resource sources only
+ * differ in which of those packs they are allowed to see. Generated packs and invisible resource providers are never
+ * indexed, as their contents may not be resolved yet or may change between calls, and are instead queried directly on
+ * the requesting thread. Directory listings are likewise memoized per path, unfiltered, with each source's filter run
+ * over the memoized listing. Misses are memoized as well, and only packs providing a location's namespace are ever
+ * probed for it.
+ */
+public final class ResourceIndex {
+    private static final int PARALLEL_THRESHOLD = 64;
+    private static final Map<PackType, ResourceIndex> CURRENT = new ConcurrentHashMap<>();
+
+    private final PackType type;
+    private final List<PackResources> topLevel;
+    // Unpacked packs, from lowest to highest priority
+    private final PackResources[] packs;
+    // The top-level pack each unpacked pack came from, or null for those from invisible providers
+    private final @Nullable String[] groupIds;
+    // Packs whose lookups are memoized, and packs queried on every call
+    private final int[] indexed;
+    private final int[] live;
+    // Lookups, including misses, are memoized per location
+    private final Map<ResourceLocation, CompletableFuture<Stack>> stacks = new ConcurrentHashMap<>();
+    private final Supplier<Map<String, int[]>> byNamespace = Suppliers.memoize(this::namespaces);
+    private final Map<String, CompletableFuture<Listing[]>> listings = new ConcurrentHashMap<>();
+
+    private ResourceIndex(PackType type, List<PackResources> topLevel) {
+        this.type = type;
+        this.topLevel = topLevel;
+        List<PackResources> unpacked = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (PackResources pack : topLevel) {
+            Services.DEGROUPER.unpackPacks(Stream.of(pack)).forEach(p -> {
+                unpacked.add(p);
+                ids.add(pack.packId());
+            });
+        }
+        InvisibleProviderUtils.INVISIBLE_RESOURCE_PROVIDERS.forEach(provider -> {
+            unpacked.add(InvisibleProviderUtils.constructPlaceholderResourcesFromProvider(provider));
+            ids.add(null);
+        });
+        this.packs = unpacked.toArray(PackResources[]::new);
+        this.groupIds = ids.toArray(String[]::new);
+        this.indexed = IntStream.range(0, packs.length).filter(i -> !isLive(i)).toArray();
+        this.live = IntStream.range(0, packs.length).filter(this::isLive).toArray();
+    }
+
+    private boolean isLive(int i) {
+        return packs[i] instanceof GeneratedPackResources || groupIds[i] == null;
+    }
+
+    /**
+     * Provides the index for a set of packs, reusing the current index for the pack type if it was built over the same
+     * packs.
+     * @param type the type of pack to index
+     * @param resources the top-level packs to index, which will be unpacked if grouped
+     * @return an index over the packs and any invisible resource providers
+     */
+    public static ResourceIndex of(PackType type, List<PackResources> resources) {
+        return CURRENT.compute(type, (k, existing) -> existing != null && sameElements(existing.topLevel, resources) ? existing : new ResourceIndex(type, resources));
+    }
+
+    private static boolean sameElements(List<PackResources> a, List<PackResources> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a resource source backed by the shared index.
+     * @param type the type of pack to target
+     * @param resources supplies the top-level packs; only invoked once the source is first used
+     * @param allowedPacks which top-level packs, by ID, the source may see
+     * @return a resource source over the allowed packs
+     */
+    public static ResourceGenerationContext.ResourceSource source(PackType type, Supplier<Stream<PackResources>> resources, Predicate<String> allowedPacks) {
+        return new IndexedSource(type, resources, allowedPacks);
+    }
+
+    private Stack stack(ResourceLocation location) {
+        return memoized(stacks, location, this::probe);
+    }
+
+    // Computes each value once, outside the map, so that a slow probe or scan never holds a map lock while other threads
+    // wait on unrelated keys
+    private static <K, V> V memoized(Map<K, CompletableFuture<V>> map, K key, Function<K, V> compute) {
+        CompletableFuture<V> existing = map.get(key);
+        if (existing == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            existing = map.putIfAbsent(key, created);
+            if (existing == null) {
+                try {
+                    V value = compute.apply(key);
+                    created.complete(value);
+                    return value;
+                } catch (Throwable t) {
+                    // Anything already waiting sees the failure, but later requests try again
+                    map.remove(key, created);
+                    created.completeExceptionally(t);
+                    throw t;
+                }
+            }
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Maps each namespace to the indexed packs providing it, so that only those packs are probed
+    private Map<String, int[]> namespaces() {
+        IntStream indices = Arrays.stream(indexed);
+        if (indexed.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        List<Set<String>> found = indices.mapToObj(i -> packs[i].getNamespaces(type)).toList();
+        Map<String, List<Integer>> providers = new HashMap<>();
+        for (int j = 0; j < indexed.length; j++) {
+            for (String namespace : found.get(j)) {
+                providers.computeIfAbsent(namespace, k -> new ArrayList<>()).add(indexed[j]);
+            }
+        }
+        Map<String, int[]> out = new HashMap<>();
+        providers.forEach((namespace, list) -> out.put(namespace, list.stream().mapToInt(Integer::intValue).toArray()));
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stack probe(ResourceLocation location) {
+        int[] candidates = byNamespace.get().get(location.getNamespace());
+        if (candidates == null) {
+            return Stack.EMPTY;
+        }
+        IntStream indices = Arrays.stream(candidates);
+        if (candidates.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        IoSupplier<InputStream>[] found = new IoSupplier[packs.length];
+        indices.forEach(i -> found[i] = packs[i].getResource(type, location));
+        int count = 0;
+        for (int i : candidates) {
+            if (found[i] != null) count++;
+        }
+        if (count == 0) {
+            return Stack.EMPTY;
+        }
+        int[] stackPacks = new int[count];
+        IoSupplier<InputStream>[] stackSuppliers = new IoSupplier[count];
+        int j = 0;
+        for (int i : candidates) {
+            if (found[i] != null) {
+                stackPacks[j] = i;
+                stackSuppliers[j] = found[i];
+                j++;
+            }
+        }
+        return new Stack(stackPacks, stackSuppliers);
+    }
+
+    private Listing[] listing(String path) {
+        return memoized(listings, path, this::scan);
+    }
+
+    private Listing[] scan(String path) {
+        Listing[] out = new Listing[packs.length];
+        IntStream indices = Arrays.stream(indexed);
+        if (indexed.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> out[i] = list(packs[i], path));
+        return out;
+    }
+
+    private Listing list(PackResources pack, String path) {
+        List<ResourceLocation> locations = new ArrayList<>();
+        List<IoSupplier<InputStream>> suppliers = new ArrayList<>();
+        for (String namespace : pack.getNamespaces(type)) {
+            pack.listResources(type, namespace, path, (rl, s) -> {
+                locations.add(rl);
+                suppliers.add(s);
+            });
+        }
+        return new Listing(locations, suppliers);
+    }
+
+    private record Listing(List<ResourceLocation> locations, List<IoSupplier<InputStream>> suppliers) {
+        private void forEach(Predicate<ResourceLocation> filter, BiConsumer<ResourceLocation, IoSupplier<InputStream>> consumer) {
+            for (int i = 0; i < locations.size(); i++) {
+                ResourceLocation location = locations.get(i);
+                if (filter.test(location)) {
+                    consumer.accept(location, suppliers.get(i));
+                }
+            }
+        }
+    }
+
+    private record Stack(int[] packs, IoSupplier<InputStream>[] suppliers) {
+        @SuppressWarnings("unchecked")
+        private static final Stack EMPTY = new Stack(new int[0], new IoSupplier[0]);
+    }
+
+    private static final class IndexedSource implements ResourceGenerationContext.ResourceSource {
+        private final PackType type;
+        private final Supplier<Stream<PackResources>> resources;
+        private final Predicate<String> allowedPacks;
+        private volatile @Nullable ResourceIndex index;
+        private boolean[] allowed;
+        private boolean anyLive;
+
+        private IndexedSource(PackType type, Supplier<Stream<PackResources>> resources, Predicate<String> allowedPacks) {
+            this.type = type;
+            this.resources = resources;
+            this.allowedPacks = allowedPacks;
+        }
+
+        private ResourceIndex index() {
+            ResourceIndex current = index;
+            if (current == null) {
+                synchronized (this) {
+                    current = index;
+                    if (current == null) {
+                        current = ResourceIndex.of(type, resources.get().toList());
+                        boolean[] newAllowed = new boolean[current.packs.length];
+                        for (int i = 0; i < newAllowed.length; i++) {
+                            String groupId = current.groupIds[i];
+                            newAllowed[i] = groupId == null || allowedPacks.test(groupId);
+                        }
+                        allowed = newAllowed;
+                        anyLive = Arrays.stream(current.live).anyMatch(i -> newAllowed[i]);
+                        index = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        // Collects the resource from each allowed pack, from lowest to highest priority
+        private List<IoSupplier<InputStream>> collect(ResourceLocation location) {
+            ResourceIndex index = index();
+            Stack stack = index.stack(location);
+            if (stack == Stack.EMPTY && !anyLive) {
+                // A known miss; no pack needs to be checked
+                return new ArrayList<>();
+            }
+            List<IoSupplier<InputStream>> out = new ArrayList<>();
+            int s = 0;
+            int l = 0;
+            while (s < stack.packs().length || l < index.live.length) {
+                if (l >= index.live.length || (s < stack.packs().length && stack.packs()[s] < index.live[l])) {
+                    if (allowed[stack.packs()[s]]) {
+                        out.add(stack.suppliers()[s]);
+                    }
+                    s++;
+                } else {
+                    int i = index.live[l];
+                    if (allowed[i]) {
+                        IoSupplier<InputStream> resource = index.packs[i].getResource(type, location);
+                        if (resource != null) {
+                            out.add(resource);
+                        }
+                    }
+                    l++;
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public @Nullable IoSupplier<InputStream> getResource(@NonNull ResourceLocation location) {
+            InputRecorder.read(location);
+            List<IoSupplier<InputStream>> found = collect(location);
+            return found.isEmpty() ? null : found.get(found.size() - 1);
+        }
+
+        @Override
+        public List<IoSupplier<InputStream>> getResourceStack(@NonNull ResourceLocation location) {
+            InputRecorder.untracked();
+            List<IoSupplier<InputStream>> out = collect(location);
+            Collections.reverse(out);
+            return out;
+        }
+
+        // Visits the listed resources of each allowed pack, from lowest to highest priority
+        private void forEachListed(String path, Predicate<ResourceLocation> filter, BiConsumer<ResourceLocation, IoSupplier<InputStream>> consumer) {
+            InputRecorder.untracked();
+            ResourceIndex index = index();
+            Listing[] listing = index.listing(path);
+            for (int i = 0; i < index.packs.length; i++) {
+                if (!allowed[i]) continue;
+                Listing packListing = listing[i];
+                if (packListing == null) {
+                    packListing = index.list(index.packs[i], path);
+                }
+                packListing.forEach(filter, consumer);
+            }
+        }
+
+        @Override
+        public Map<ResourceLocation, IoSupplier<InputStream>> listResources(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
+            Map<ResourceLocation, IoSupplier<InputStream>> resources = new HashMap<>();
+            forEachListed(path, filter, resources::put);
+            return resources;
+        }
+
+        @Override
+        public Map<ResourceLocation, List<IoSupplier<InputStream>>> listResourceStacks(@NonNull String path, @NonNull Predicate<ResourceLocation> filter) {
+            Map<ResourceLocation, List<IoSupplier<InputStream>>> resources = new HashMap<>();
+            forEachListed(path, filter, (rl, s) -> resources.computeIfAbsent(rl, location -> new ArrayList<>()).add(s));
+            for (var list : resources.values()) {
+                Collections.reverse(list);
+            }
+            return resources;
+        }
+
+        @Override
+        public @NonNull Set<String> getNamespaces() {
+            ResourceIndex index = index();
+            Set<String> namespaces = new HashSet<>();
+            for (int i = 0; i < index.packs.length; i++) {
+                if (allowed[i]) {
+                    namespaces.addAll(index.packs[i].getNamespaces(type));
+                }
+            }
+            return namespaces;
+        }
+    }
+}
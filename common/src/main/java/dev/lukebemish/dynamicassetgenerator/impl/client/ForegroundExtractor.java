@@ -5,9 +5,13 @@
 
 package dev.lukebemish.dynamicassetgenerator.impl.client;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.serialization.DataResult;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
 import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils;
 import dev.lukebemish.dynamicassetgenerator.api.colors.ColorTypes;
 import dev.lukebemish.dynamicassetgenerator.api.colors.Palette;
@@ -16,11 +20,15 @@
 import dev.lukebemish.dynamicassetgenerator.api.colors.geometry.ColorCoordinates;
 import dev.lukebemish.dynamicassetgenerator.impl.CacheReference;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.mixin.NativeImageAccessor;
+import dev.lukebemish.dynamicassetgenerator.impl.util.RowBands;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.longs.Long2IntMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.FastColor;
-import org.jspecify.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
 
 import java.io.Closeable;
 import java.util.ArrayList;
@@ -28,7 +36,6 @@
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.stream.IntStream;
 
 public class ForegroundExtractor implements Closeable {
     private static final int[] X_SAMPLING_ORDER = new int[]{-1, -1, -1, 0, 0, 0, 1, 1, 1};
@@ -37,6 +44,10 @@ public class ForegroundExtractor implements Closeable {
     private static final int[] ALPHAS = new int[]{26, 38, 51, 64};
 
     private static final Map<ResourceLocation, Map<String, CacheReference<OutputHolder>>> MULTI_CACHE = new ConcurrentHashMap<>();
+    // Hashes of the images each cached extraction was computed from, and extractions carried over from before the last
+    // reset, which are reused if computed from identical images.
+    private static final Map<ResourceLocation, Map<String, HashCode>> INPUTS = new ConcurrentHashMap<>();
+    private static final Map<ResourceLocation, Map<String, Carried>> PREVIOUS = new ConcurrentHashMap<>();
 
     private boolean fillHoles = false;
 
@@ -84,11 +95,11 @@ public ForegroundExtractor(ResourceLocation cacheName, DataResult<String> cacheK
     }
 
     public NativeImage getOverlayImg() {
-        return outputHolder.o;
+        return outputHolder.o.image();
     }
 
     public NativeImage getPalettedImg() {
-        return outputHolder.p;
+        return outputHolder.p.image();
     }
 
     private void tryCloseOutputs() {
@@ -105,8 +116,8 @@ private Holder recalcImagesAlternate() {
         int bs = dim / bDim;
         int ws = dim / wDim;
         //Assemble palette for background
-        NativeImage oImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim, false);
-        NativeImage pImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim, false);
+        NativeImage oImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim);
+        NativeImage pImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim);
         Palette backgroundPalette = ImageUtils.getPalette(background);
         backgroundPalette.extend(this.extend);
         Palette withOverlayPalette = ImageUtils.getPalette(withOverlay);
@@ -155,8 +166,8 @@ private Holder recalcImagesAlternate() {
         }
 
         //write paletted image base stuff
-        IntStream.range(0, dim).parallel().forEach(x -> {
-            for (int y = 0; y < dim; y++) {
+        RowBands.forEachRow(dim, dim, y -> {
+            for (int x = 0; x < dim; x++) {
                 int bC = ImageUtils.safeGetPixelARGB(background, x / bs, y / bs);
                 int wC = ImageUtils.safeGetPixelARGB(withOverlay, x / ws, y / ws);
                 if (fColors.contains(wC)) {
@@ -229,8 +240,8 @@ private Holder recalcImagesAlternate() {
 
     private void trimAndOverlay(int dim, int ws, NativeImage oImg, NativeImage pImg, NativeImage wImg, Palette backgroundPalette) {
         if (trimTrailingPaletteLookup || forceOverlayNeighbors) {
-            IntStream.range(0, dim).parallel().forEach(x -> {
-                for (int y = 0; y < dim; y++) {
+            RowBands.forEachRow(dim, dim, y -> {
+                for (int x = 0; x < dim; x++) {
                     boolean hasNeighbor = false;
                     boolean hasFullNeighbor = false;
                     for (int j = 0; j < X_SAMPLING_ORDER.length; j++) {
@@ -266,8 +277,8 @@ private void recalcImages() {
         int bs = dim / bDim;
         int ws = dim / wDim;
         //Assemble palette for background
-        NativeImage oImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim, false);
-        NativeImage pImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim, false);
+        NativeImage oImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim);
+        NativeImage pImg = NativeImageHelper.of(NativeImage.Format.RGBA, dim, dim);
         Palette backgroundPalette = ImageUtils.getPalette(background);
         backgroundPalette.extend(this.extend);
         Palette withOverlayPalette = ImageUtils.getPalette(withOverlay);
@@ -286,43 +297,50 @@ private void recalcImages() {
         }
         final double avgDiff = workingAvgDiff;
 
-        Palette frontColors = new Palette();
-
-        ArrayList<PostCalcEvent> postQueue = new ArrayList<>();
         //write paletted image base stuff
-        IntStream.range(0, dim).parallel().forEach(x -> {
-            for (int y = 0; y < dim; y++) {
-                int bColor = ImageUtils.safeGetPixelARGB(background, x / bs, y / bs);
-                int wColor = ImageUtils.safeGetPixelARGB(withOverlay, x / ws, y / ws);
-                if (backgroundPalette.contains(wColor)) {
-                    int wSample = backgroundPalette.getSample(wColor);
-                    int bSample = backgroundPalette.getSample(bColor);
-                    if (wSample != bSample) {
-                        ImageUtils.safeSetPixelABGR(pImg, x, y, FastColor.ABGR32.color(255, wSample, wSample, wSample));
-                    }
-                } else {
-                    //the color sampled isn't in the palette. Now it gets painful...
-                    //we could just try dumping it in the overlay, but that isn't going to work too well for some pixels.
-                    //let's first find the minimum distance from the palette.
-                    int closestSample = backgroundPalette.getSample(wColor);
-                    //Now let's check how close it is.
-                    if (backgroundPalette.distanceToPolyLine(wColor, coordinatesLab) < closeCutoff * avgDiff) {
-                        //Add it to the post-processing queue
-                        ImageUtils.safeSetPixelABGR(pImg, x, y, FastColor.ABGR32.color(0xFF, closestSample, closestSample, closestSample));
-                        synchronized (postQueue) {
-                            postQueue.add(new PostCalcEvent(x, y, wColor));
+        List<BandResult> bands = RowBands.mapBands(dim, dim, (fromY, toY) -> {
+            BandResult band = new BandResult(new ArrayList<>(), new IntArrayList());
+            for (int y = fromY; y < toY; y++) {
+                for (int x = 0; x < dim; x++) {
+                    int bColor = ImageUtils.safeGetPixelARGB(background, x / bs, y / bs);
+                    int wColor = ImageUtils.safeGetPixelARGB(withOverlay, x / ws, y / ws);
+                    if (backgroundPalette.contains(wColor)) {
+                        int wSample = backgroundPalette.getSample(wColor);
+                        int bSample = backgroundPalette.getSample(bColor);
+                        if (wSample != bSample) {
+                            ImageUtils.safeSetPixelABGR(pImg, x, y, FastColor.ABGR32.color(255, wSample, wSample, wSample));
                         }
                     } else {
-                        //It's too far away. Write to the overlay.
-                        ImageUtils.safeSetPixelARGB(oImg, x, y, wColor);
-                        synchronized (frontColors) {
-                            frontColors.add(wColor);
+                        //the color sampled isn't in the palette. Now it gets painful...
+                        //we could just try dumping it in the overlay, but that isn't going to work too well for some pixels.
+                        //let's first find the minimum distance from the palette.
+                        int closestSample = backgroundPalette.getSample(wColor);
+                        //Now let's check how close it is.
+                        if (backgroundPalette.distanceToPolyLine(wColor, coordinatesLab) < closeCutoff * avgDiff) {
+                            //Add it to the post-processing queue
+                            ImageUtils.safeSetPixelABGR(pImg, x, y, FastColor.ABGR32.color(0xFF, closestSample, closestSample, closestSample));
+                            band.postQueue().add(new PostCalcEvent(x, y, wColor));
+                        } else {
+                            //It's too far away. Write to the overlay.
+                            ImageUtils.safeSetPixelARGB(oImg, x, y, wColor);
+                            band.frontColors().add(wColor);
                         }
                     }
                 }
             }
+            return band;
         });
 
+        // Merged in row order, so the palette is built from the colors in the same order as when run serially
+        Palette frontColors = new Palette();
+        ArrayList<PostCalcEvent> postQueue = new ArrayList<>();
+        for (BandResult band : bands) {
+            postQueue.addAll(band.postQueue());
+            for (int i = 0; i < band.frontColors().size(); i++) {
+                frontColors.add(band.frontColors().getInt(i));
+            }
+        }
+
         if (frontColors.isEmpty() || frontColors.size()*backgroundPalette.size()*postQueue.size() > DynamicAssetGenerator.getConfig().paletteForceClusteringCutoff()) {
             Holder alt = recalcImagesAlternate();
             if (frontColors.isEmpty()) {
@@ -334,9 +352,9 @@ private void recalcImages() {
                     DynamicAssetGenerator.LOGGER.warn("Supplied images for extraction contained too many colors and were too high resolution to resolve post-calculation queue; attempting clustering color extraction.");
                 hasLogged[2] = true;
             }
-            this.outputHolder = new OutputHolder(alt.o(), alt.p());
-            oImg.close();
-            pImg.close();
+            this.outputHolder = new OutputHolder(ImageHandle.of(alt.o()), ImageHandle.of(alt.p()));
+            NativeImageHelper.release(oImg);
+            NativeImageHelper.release(pImg);
             return;
         }
 
@@ -394,7 +412,7 @@ private void recalcImages() {
             }
         }
 
-        this.outputHolder = new OutputHolder(oImg, pImg);
+        this.outputHolder = new OutputHolder(ImageHandle.of(oImg), ImageHandle.of(pImg));
     }
 
     private static final int[] TO_SEARCH_XS = new int[] {0, 1, 0, -1};
@@ -482,45 +500,29 @@ public ForegroundExtractor fillHoles(boolean fillHoles) {
     @Override
     public void close() {
         tryCloseOutputs();
-        if (background!=null)
-            background.close();
-        if (withOverlay!=null)
-            withOverlay.close();
     }
 
     private record PostCalcEvent(int x, int y, int wColor) {}
 
+    private record BandResult(List<PostCalcEvent> postQueue, IntList frontColors) {}
+
     private record Holder(NativeImage o, NativeImage p) implements Closeable {
         @Override
         public void close() {
-            o.close();
-            p.close();
+            NativeImageHelper.release(o);
+            NativeImageHelper.release(p);
         }
     }
 
-    private record OutputHolder(@Nullable NativeImage o, @Nullable NativeImage p) implements Closeable {
-        public OutputHolder copy() {
-            NativeImage newO = null;
-            if (o != null) {
-                newO = NativeImageHelper.of(o.format(), o.getWidth(), o.getHeight(), false);
-                newO.copyFrom(o);
-            }
-            NativeImage newP = null;
-            if (p != null) {
-                newP = NativeImageHelper.of(p.format(), p.getWidth(), p.getHeight(), false);
-                newP.copyFrom(p);
-            }
-            return new OutputHolder(newO, newP);
+    private record OutputHolder(ImageHandle o, ImageHandle p) implements Closeable {
+        public OutputHolder retain() {
+            return new OutputHolder(o.retain(), p.retain());
         }
 
         @Override
         public void close() {
-            if (p!=null) {
-                p.close();
-            }
-            if (o!=null) {
-                o.close();
-            }
+            p.close();
+            o.close();
         }
     }
 
@@ -534,21 +536,70 @@ public void unCacheOrReCalc() {
         var ref = cache.computeIfAbsent(cacheKey.result().get(), k -> new CacheReference<>());
         ref.doSync(holder -> {
             if (holder != null) {
-                this.outputHolder = holder.copy();
+                this.outputHolder = holder.retain();
             } else {
-                this.recalcImages();
-                ref.setHeld(this.outputHolder.copy());
+                String key = cacheKey.result().get();
+                HashCode inputs = DynamicAssetGenerator.getConfig().incrementalReload() ? inputHash() : null;
+                var previous = PREVIOUS.get(this.cacheName);
+                Carried carried = previous == null ? null : previous.remove(key);
+                if (carried != null && carried.inputs().equals(inputs)) {
+                    this.outputHolder = carried.holder().retain();
+                    ref.setHeld(carried.holder());
+                } else {
+                    if (carried != null) {
+                        carried.holder().close();
+                    }
+                    this.recalcImages();
+                    ref.setHeld(this.outputHolder.retain());
+                }
+                if (inputs != null) {
+                    INPUTS.computeIfAbsent(this.cacheName, k -> new ConcurrentHashMap<>()).put(key, inputs);
+                }
             }
         });
     }
 
+    private HashCode inputHash() {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (NativeImage image : new NativeImage[] {background, withOverlay}) {
+            hasher.putInt(image.getWidth());
+            hasher.putInt(image.getHeight());
+            hasher.putInt(image.format().ordinal());
+            long pixels = ((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels();
+            hasher.putBytes(MemoryUtil.memByteBuffer(pixels, image.getWidth() * image.getHeight() * image.format().components()));
+        }
+        return hasher.hash();
+    }
+
     public static void reset(ResourceGenerationContext context) {
         synchronized (MULTI_CACHE) {
-            Map<String, CacheReference<OutputHolder>> cache;
-            if ((cache = MULTI_CACHE.get(context.getCacheName())) != null) {
-                cache.forEach((s, e) -> e.getHeld().close());
-                MULTI_CACHE.remove(context.getCacheName());
+            // Extractions carried over last time but not reused since were computed from images which have changed
+            Map<String, Carried> stale = PREVIOUS.remove(context.getCacheName());
+            if (stale != null) {
+                stale.forEach((s, c) -> c.holder().close());
+            }
+            Map<String, CacheReference<OutputHolder>> cache = MULTI_CACHE.remove(context.getCacheName());
+            Map<String, HashCode> inputs = INPUTS.remove(context.getCacheName());
+            if (cache != null) {
+                Map<String, Carried> carried = new ConcurrentHashMap<>();
+                cache.forEach((s, e) -> {
+                    OutputHolder held = e.getHeld();
+                    if (held == null) {
+                        return;
+                    }
+                    HashCode hash = inputs == null ? null : inputs.get(s);
+                    if (hash != null) {
+                        carried.put(s, new Carried(held, hash));
+                    } else {
+                        held.close();
+                    }
+                });
+                if (!carried.isEmpty()) {
+                    PREVIOUS.put(context.getCacheName(), carried);
+                }
             }
         }
     }
+
+    private record Carried(OutputHolder holder, HashCode inputs) {}
 }
@@ -5,16 +5,138 @@
 
 package dev.lukebemish.dynamicassetgenerator.impl.client;
 
+import com.google.common.collect.MapMaker;
 import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.mixin.NativeImageAccessor;
+import org.jspecify.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
 
-public class NativeImageHelper {
-    public static NativeImage of(NativeImage.Format format, int x, int y, boolean bl) {
-        NativeImage ni = new NativeImage(format,x,y,bl);
-        for (int i = 0; i<x; i++) {
-            for (int j = 0; j<y; j++) {
-                ni.setPixelRGBA(i,j,0);
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates the images texture sources generate. Small intermediate images are allocated and freed in large numbers
+ * during a reload, so images released once they are no longer needed are kept in a pool, by format and size,
+ * and handed out again instead of allocating new memory. Only images allocated here are pooled; others, such as those
+ * read by {@link NativeImage#read}, may be freed differently and are always closed. The pool is bounded, and emptied
+ * whenever texture source caches are reset for a reload.
+ */
+public final class NativeImageHelper {
+    private NativeImageHelper() {}
+
+    private static final int MAX_POOLED_PIXELS = 128 * 128;
+    private static final int MAX_POOLED_PER_SIZE = 64;
+    private static final long MAX_POOLED_BYTES = 32L * 1024 * 1024;
+
+    private static final Map<Key, Pool> POOLS = new ConcurrentHashMap<>();
+    // Images allocated here, whose pixels were allocated with the same allocator and may be reused
+    private static final Set<NativeImage> ALLOCATED = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+    private static final AtomicLong POOLED_BYTES = new AtomicLong();
+    private static final AtomicLong REUSED = new AtomicLong();
+
+    /**
+     * @return an image of the given format and size with every pixel cleared
+     */
+    public static NativeImage of(NativeImage.Format format, int width, int height) {
+        NativeImage image = take(format, width, height);
+        if (image == null) {
+            return track(new NativeImage(format, width, height, true));
+        }
+        MemoryUtil.memSet(pointer(image), 0, size(image));
+        return image;
+    }
+
+    /**
+     * @return an image of the given format and size with unspecified contents, for images every pixel of which will be
+     * written
+     */
+    public static NativeImage allocate(NativeImage.Format format, int width, int height) {
+        NativeImage image = take(format, width, height);
+        return image == null ? track(new NativeImage(format, width, height, false)) : image;
+    }
+
+    private static NativeImage track(NativeImage image) {
+        ALLOCATED.add(image);
+        return image;
+    }
+
+    /**
+     * Frees an image which is no longer used, returning it to the pool if there is room. The image must not be used
+     * afterwards.
+     * @param image the image to free
+     */
+    public static void release(NativeImage image) {
+        long size = size(image);
+        if (!ALLOCATED.contains(image) || pointer(image) == 0 || (long) image.getWidth() * image.getHeight() > MAX_POOLED_PIXELS) {
+            image.close();
+            return;
+        }
+        Pool pool = POOLS.computeIfAbsent(new Key(image.format(), image.getWidth(), image.getHeight()), k -> new Pool());
+        if (pool.count.incrementAndGet() > MAX_POOLED_PER_SIZE) {
+            pool.count.decrementAndGet();
+            image.close();
+            return;
+        }
+        if (POOLED_BYTES.addAndGet(size) > MAX_POOLED_BYTES) {
+            POOLED_BYTES.addAndGet(-size);
+            pool.count.decrementAndGet();
+            image.close();
+            return;
+        }
+        pool.images.add(image);
+    }
+
+    /**
+     * Frees every pooled image.
+     */
+    public static void reset() {
+        long reused = REUSED.getAndSet(0);
+        POOLS.values().forEach(pool -> {
+            NativeImage image;
+            while ((image = pool.images.poll()) != null) {
+                pool.count.decrementAndGet();
+                POOLED_BYTES.addAndGet(-size(image));
+                image.close();
             }
+        });
+        if (DynamicAssetGenerator.TIME_RESOURCES) {
+            DynamicAssetGenerator.LOGGER.info("Reused {} pooled images since the last reset", reused);
+        }
+    }
+
+    private static @Nullable NativeImage take(NativeImage.Format format, int width, int height) {
+        Pool pool = POOLS.get(new Key(format, width, height));
+        if (pool == null) {
+            return null;
+        }
+        NativeImage image = pool.images.poll();
+        if (image != null) {
+            pool.count.decrementAndGet();
+            POOLED_BYTES.addAndGet(-size(image));
+            REUSED.incrementAndGet();
         }
-        return ni;
+        return image;
+    }
+
+    private static long pointer(NativeImage image) {
+        return ((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels();
+    }
+
+    private static long size(NativeImage image) {
+        return (long) image.getWidth() * image.getHeight() * image.format().components();
+    }
+
+    private record Key(NativeImage.Format format, int width, int height) {}
+
+    private static final class Pool {
+        private final Queue<NativeImage> images = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
     }
 }
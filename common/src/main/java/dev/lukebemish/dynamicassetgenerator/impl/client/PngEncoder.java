@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.client;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.ModConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes generated images as PNG according to the configured encoding profile. A compression level of {@code -1}
+ * defers to the vanilla encoder; levels from {@code 0}, which stores image data uncompressed, to {@code 9} use a
+ * built-in encoder with the configured row filter. Images in formats other than RGBA always use the vanilla encoder.
+ */
+public final class PngEncoder {
+    private PngEncoder() {}
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BYTES_PER_PIXEL = 4;
+
+    public static byte[] encode(NativeImage image) throws IOException {
+        ModConfig config = DynamicAssetGenerator.getConfig();
+        int level = config.pngCompressionLevel();
+        if (level < 0 || image.format() != NativeImage.Format.RGBA) {
+            return image.asByteArray();
+        }
+        return encode(image, level, config.pngFilter());
+    }
+
+    public static byte[] encode(NativeImage image, int level, ModConfig.PngFilter filter) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8); // bit depth
+        headerData.writeByte(6); // truecolor with alpha
+        headerData.writeByte(0); // deflate
+        headerData.writeByte(0); // adaptive filtering
+        headerData.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray(), header.size());
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream(height * (width * BYTES_PER_PIXEL + 1));
+        Deflater deflater = new Deflater(level);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(data, deflater, 8192)) {
+            int[] pixels = image.getPixelsRGBA();
+            int stride = width * BYTES_PER_PIXEL;
+            byte[] previous = new byte[stride];
+            byte[] current = new byte[stride];
+            byte[] filtered = new byte[stride];
+            byte[] best = new byte[stride];
+            for (int y = 0; y < height; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    // Pixels are stored as ABGR integers, which is RGBA in little-endian byte order
+                    int color = pixels[offset + x];
+                    int i = x * BYTES_PER_PIXEL;
+                    current[i] = (byte) color;
+                    current[i + 1] = (byte) (color >> 8);
+                    current[i + 2] = (byte) (color >> 16);
+                    current[i + 3] = (byte) (color >>> 24);
+                }
+                int type;
+                if (filter == ModConfig.PngFilter.ADAPTIVE) {
+                    type = 0;
+                    long bestScore = Long.MAX_VALUE;
+                    for (int candidate = 0; candidate < 5; candidate++) {
+                        long score = applyFilter(candidate, current, previous, filtered);
+                        if (score < bestScore) {
+                            bestScore = score;
+                            type = candidate;
+                            byte[] swap = best;
+                            best = filtered;
+                            filtered = swap;
+                        }
+                    }
+                } else {
+                    type = filter.ordinal();
+                    applyFilter(type, current, previous, best);
+                }
+                deflated.write(type);
+                deflated.write(best, 0, stride);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        } finally {
+            deflater.end();
+        }
+        writeChunk(out, "IDAT", data.toByteArray(), data.size());
+        writeChunk(out, "IEND", new byte[0], 0);
+        return out.toByteArray();
+    }
+
+    // Filters a row into the output buffer, returning the sum of absolute filtered values as a heuristic score
+    private static long applyFilter(int type, byte[] row, byte[] previous, byte[] out) {
+        long score = 0;
+        for (int i = 0; i < row.length; i++) {
+            int raw = row[i] & 0xFF;
+            int left = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+            int up = previous[i] & 0xFF;
+            int value = switch (type) {
+                case 1 -> raw - left;
+                case 2 -> raw - up;
+                case 3 -> raw - ((left + up) >> 1);
+                case 4 -> raw - paeth(left, up, i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xFF : 0);
+                default -> raw;
+            };
+            byte filtered = (byte) value;
+            out[i] = filtered;
+            score += Math.abs(filtered);
+        }
+        return score;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        if (pb <= pc) return b;
+        return c;
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data, int length) throws IOException {
+        DataOutputStream stream = new DataOutputStream(out);
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        stream.writeInt(length);
+        stream.write(typeBytes);
+        stream.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        stream.writeInt((int) crc.getValue());
+    }
+}
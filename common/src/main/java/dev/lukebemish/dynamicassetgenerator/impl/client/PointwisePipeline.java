@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.client;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.PointwiseTexSource;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageRaster;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
+import dev.lukebemish.dynamicassetgenerator.impl.util.Maath;
+import dev.lukebemish.dynamicassetgenerator.impl.util.MultiCloser;
+import dev.lukebemish.dynamicassetgenerator.impl.util.RowBands;
+import net.minecraft.server.packs.resources.IoSupplier;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a tree of {@link PointwiseTexSource}s into a single pass over the output texture. Nested pointwise sources
+ * become nodes of that pass; any other source is a barrier, generated through the cache as usual, whose pixels
+ * are read once and sampled by the nodes above it. A node samples its inputs exactly as
+ * {@link dev.lukebemish.dynamicassetgenerator.api.client.image.ImageUtils#generateScaledImage} would sample their
+ * textures, so the output matches generating each source separately. Nodes are evaluated a row at a time, through
+ * {@link IntPointwiseOperation#applyRow}. Past a fixed number of nodes, further pointwise sources are generated
+ * separately, so that a source nested in several places is shared through the cache rather than evaluated once for
+ * each place it appears.
+ */
+public final class PointwisePipeline {
+    private PointwisePipeline() {}
+
+    private static final int MAX_NODES = 32;
+
+    public static @Nullable IoSupplier<NativeImage> supplier(PointwiseTexSource source, TexSourceDataHolder data, ResourceGenerationContext context) {
+        PointwiseTexSource.Kernel kernel = source.getKernel(data, context);
+        if (kernel == null) {
+            return null;
+        }
+        List<IoSupplier<ImageHandle>> barriers = new ArrayList<>();
+        Plan plan = compile(kernel, data, context, barriers, new int[] {1});
+        if (plan == null) {
+            return null;
+        }
+        return () -> {
+            List<ImageHandle> handles = new ArrayList<>();
+            try (MultiCloser ignored = new MultiCloser(handles)) {
+                for (IoSupplier<ImageHandle> barrier : barriers) {
+                    handles.add(barrier.get());
+                }
+                List<Node> leaves = new ArrayList<>();
+                for (ImageHandle handle : handles) {
+                    NativeImage image = handle.image();
+                    leaves.add(new Leaf(image.getWidth(), image.getHeight(), ImageRaster.of(image).getPixels()));
+                }
+                Node root = plan.resolve(leaves);
+                int width = root.width;
+                int height = root.height;
+                int[] pixels = new int[width * height];
+                RowBands.forEachBand(width, height, (fromY, toY) -> {
+                    Node node = root.copy();
+                    for (int y = fromY; y < toY; y++) {
+                        System.arraycopy(node.row(y), 0, pixels, y * width, width);
+                    }
+                });
+                ImageRaster.swapRedBlue(pixels, 0, pixels.length);
+                NativeImage out = NativeImageHelper.allocate(NativeImage.Format.RGBA, width, height);
+                ImageRaster.of(out).setPixelsABGR(pixels);
+                return out;
+            }
+        };
+    }
+
+    private static @Nullable Plan compile(PointwiseTexSource.Kernel kernel, TexSourceDataHolder data, ResourceGenerationContext context, List<IoSupplier<ImageHandle>> barriers, int[] nodes) {
+        List<Plan> inputs = new ArrayList<>();
+        for (TexSource input : kernel.inputs()) {
+            if (input instanceof PointwiseTexSource pointwise && nodes[0] < MAX_NODES) {
+                PointwiseTexSource.Kernel inner = pointwise.getKernel(data, context);
+                if (inner == null) {
+                    return null;
+                }
+                nodes[0]++;
+                Plan plan = compile(inner, data, context, barriers, nodes);
+                if (plan == null) {
+                    return null;
+                }
+                inputs.add(plan);
+            } else {
+                IoSupplier<ImageHandle> supplier = input.getCachedHandleSupplier(data, context);
+                if (supplier == null) {
+                    data.getLogger().error("Texture given was nonexistent...\n{}", input.stringify());
+                    return null;
+                }
+                inputs.add(new Plan(barriers.size(), null, List.of()));
+                barriers.add(supplier);
+            }
+        }
+        return new Plan(-1, kernel.operation(), inputs);
+    }
+
+    private record Plan(int barrier, @Nullable IntPointwiseOperation operation, List<Plan> inputs) {
+        Node resolve(List<Node> leaves) {
+            if (operation == null) {
+                return leaves.get(barrier);
+            }
+            Node[] resolved = new Node[inputs.size()];
+            List<Integer> widths = new ArrayList<>();
+            for (int i = 0; i < resolved.length; i++) {
+                resolved[i] = inputs.get(i).resolve(leaves);
+                widths.add(resolved[i].width);
+            }
+            // Sized as by ImageUtils.calculateScaledSize
+            int width = Maath.lcm(widths);
+            int height = 0;
+            for (Node input : resolved) {
+                height = Math.max(height, width / input.width * input.height);
+            }
+            return new Fused(operation, resolved, width, height);
+        }
+    }
+
+    private abstract static class Node {
+        final int width;
+        final int height;
+
+        Node(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * @return a node sharing the structure and pixels of this one, with its own buffers
+         */
+        abstract Node copy();
+
+        /**
+         * @return an array holding the given row of this node, valid until the next call
+         */
+        abstract int[] row(int y);
+    }
+
+    private static final class Leaf extends Node {
+        private final int[] pixels;
+        private final int[] row;
+
+        private Leaf(int width, int height, int[] pixels) {
+            super(width, height);
+            this.pixels = pixels;
+            this.row = new int[width];
+        }
+
+        @Override
+        Node copy() {
+            return new Leaf(width, height, pixels);
+        }
+
+        @Override
+        int[] row(int y) {
+            System.arraycopy(pixels, y * width, row, 0, width);
+            return row;
+        }
+    }
+
+    private static final class Fused extends Node {
+        private final IntPointwiseOperation operation;
+        private final Node[] inputs;
+        private final int[][] rows;
+        private final int[][] scaled;
+        private final int[] row;
+        private int lastY = -1;
+
+        private Fused(IntPointwiseOperation operation, Node[] inputs, int width, int height) {
+            super(width, height);
+            this.operation = operation;
+            this.inputs = inputs;
+            this.rows = new int[inputs.length][];
+            this.scaled = new int[inputs.length][];
+            for (int k = 0; k < inputs.length; k++) {
+                if (inputs[k].width != width) {
+                    scaled[k] = new int[width];
+                }
+            }
+            this.row = new int[width];
+        }
+
+        @Override
+        Node copy() {
+            Node[] copied = new Node[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                copied[i] = inputs[i].copy();
+            }
+            return new Fused(operation, copied, width, height);
+        }
+
+        @Override
+        int[] row(int y) {
+            // Vertically upscaled nodes are asked for the same row several times in a row
+            if (y == lastY) {
+                return row;
+            }
+            for (int k = 0; k < inputs.length; k++) {
+                Node input = inputs[k];
+                int[] inputRow = input.row(y * input.height / height);
+                if (scaled[k] == null) {
+                    rows[k] = inputRow;
+                } else {
+                    for (int x = 0; x < width; x++) {
+                        scaled[k][x] = inputRow[x * input.width / width];
+                    }
+                    rows[k] = scaled[k];
+                }
+            }
+            // Every input covers the whole node, as sized by ImageUtils.calculateScaledSize, so all are in-bounds
+            operation.applyRow(rows, row, 0, width);
+            lastY = y;
+            return row;
+        }
+    }
+}
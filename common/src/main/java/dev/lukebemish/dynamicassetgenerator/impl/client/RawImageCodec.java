@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.client;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.ModConfig;
+import dev.lukebemish.dynamicassetgenerator.impl.mixin.NativeImageAccessor;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores cached images either as PNG or as raw RGBA pixel data following a short header, optionally deflated. Raw
+ * images are loaded by reading their pixel data directly into the memory of a new image, skipping PNG decoding. Cached
+ * data in either format can always be read, regardless of the format currently configured.
+ */
+public final class RawImageCodec {
+    private RawImageCodec() {}
+
+    private static final int MAGIC = 0x44414752; // "DAGR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 14;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte DEFLATED = 1;
+
+    /**
+     * Encodes an image for caching in the configured format.
+     * @param image the image to encode
+     * @return the encoded image
+     */
+    public static byte[] encode(NativeImage image) throws IOException {
+        ModConfig.SpriteCacheFormat format = DynamicAssetGenerator.getConfig().spriteCacheFormat();
+        if (format == ModConfig.SpriteCacheFormat.PNG || image.format() != NativeImage.Format.RGBA) {
+            return PngEncoder.encode(image);
+        }
+        boolean deflate = format == ModConfig.SpriteCacheFormat.RAW_DEFLATE;
+        int size = image.getWidth() * image.getHeight() * 4;
+        ByteBuffer pixels = MemoryUtil.memByteBuffer(((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels(), size);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + (deflate ? size / 2 : size));
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(deflate ? DEFLATED : UNCOMPRESSED);
+        header.writeInt(image.getWidth());
+        header.writeInt(image.getHeight());
+        byte[] data = new byte[size];
+        pixels.get(data);
+        writePixels(out, data, deflate);
+        return out.toByteArray();
+    }
+
+    static void writePixels(OutputStream out, byte[] data, boolean deflate) throws IOException {
+        if (deflate) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (var deflated = new DeflaterOutputStream(out, deflater, 8192)) {
+                deflated.write(data);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            out.write(data);
+        }
+    }
+
+    /**
+     * Reads a cached image in any format produced by {@link #encode}.
+     * @param input the cached data; closed once read
+     * @return the decoded image
+     */
+    public static NativeImage read(InputStream input) throws IOException {
+        try (var stream = new BufferedInputStream(input, 8192)) {
+            stream.mark(4);
+            DataInputStream data = new DataInputStream(stream);
+            int magic = data.readInt();
+            if (magic != MAGIC) {
+                stream.reset();
+                return NativeImage.read(stream);
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cached image version " + version);
+            }
+            byte compression = data.readByte();
+            int width = data.readInt();
+            int height = data.readInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid cached image size " + width + "x" + height);
+            }
+            InputStream payload = switch (compression) {
+                case UNCOMPRESSED -> stream;
+                case DEFLATED -> new InflaterInputStream(stream);
+                default -> throw new IOException("Unsupported cached image compression " + compression);
+            };
+            NativeImage image = new NativeImage(NativeImage.Format.RGBA, width, height, false);
+            try {
+                ByteBuffer pixels = MemoryUtil.memByteBuffer(((NativeImageAccessor) (Object) image).dynamic_asset_generator$getPixels(), width * height * 4);
+                readPixels(payload, pixels);
+                return image;
+            } catch (IOException | RuntimeException e) {
+                image.close();
+                throw e;
+            }
+        }
+    }
+
+    static void readPixels(InputStream payload, ByteBuffer pixels) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(payload);
+        while (pixels.hasRemaining()) {
+            if (channel.read(pixels) < 0) {
+                throw new EOFException("Cached image data ended early");
+            }
+        }
+    }
+}
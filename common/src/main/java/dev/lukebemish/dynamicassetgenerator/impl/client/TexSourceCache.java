@@ -6,90 +6,302 @@
 package dev.lukebemish.dynamicassetgenerator.impl.client;
 
 import com.mojang.blaze3d.platform.NativeImage;
-import com.mojang.datafixers.util.Either;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
-import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaJsonOps;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSource;
 import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
-import dev.lukebemish.dynamicassetgenerator.impl.CacheReference;
+import dev.lukebemish.dynamicassetgenerator.api.client.image.ImageHandle;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.util.InputRecorder;
+import dev.lukebemish.dynamicassetgenerator.impl.util.ResourceDigests;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.IoSupplier;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class TexSourceCache {
     private TexSourceCache() {
     }
 
-    private static final Map<ResourceLocation, Map<String, CacheReference<Either<NativeImage, IOException>>>> MULTI_CACHE = new ConcurrentHashMap<>();
+    // Each entry is published before it is computed, so concurrent requests for the same key wait on a single
+    // computation instead of each running the supplier.
+    private static final Map<ResourceLocation, Map<String, CompletableFuture<ImageHandle>>> MULTI_CACHE = new ConcurrentHashMap<>();
+    private static final Map<ResourceLocation, Stats> STATS = new ConcurrentHashMap<>();
+
+    // The content digests of the resources each entry read while computing, keyed like the entries themselves; entries
+    // which read something that cannot be tracked, or forked work onto other threads, have no digests recorded.
+    private static final Map<ResourceLocation, Map<String, Map<ResourceLocation, String>>> INPUTS = new ConcurrentHashMap<>();
+    // Entries carried over from before the last reset, which are reused if none of the resources they read changed.
+    // Carried entries stay counted against the retention budget, and may be evicted like any other.
+    private static final Map<ResourceLocation, Map<String, Carried>> PREVIOUS = new ConcurrentHashMap<>();
+    private static final String ABSENT = "";
+
+    // Tracks retained images across all caches in access order, so the least recently used can be evicted once the
+    // configured budget is exceeded.
+    private static final LinkedHashMap<EntryKey, Long> RETAINED = new LinkedHashMap<>(16, 0.75f, true);
+    private static long retainedBytes = 0;
 
     @NonNull
-    public static NativeImage fromCache(IoSupplier<NativeImage> supplier, TexSource source, ResourceGenerationContext context, TexSourceDataHolder data) throws IOException {
+    public static ImageHandle fromCache(IoSupplier<ImageHandle> supplier, TexSource source, ResourceGenerationContext context, TexSourceDataHolder data) throws IOException {
         var cache = MULTI_CACHE.computeIfAbsent(context.getCacheName(), k -> new ConcurrentHashMap<>());
+        var stats = STATS.computeIfAbsent(context.getCacheName(), k -> new Stats());
+        String cacheKey;
         try {
-            var dataOps = new CacheMetaJsonOps();
+            var dataOps = new DigestJsonOps(context);
             dataOps.putData(TexSourceDataHolder.class, data);
-            String cacheKey = TexSource.CODEC.encodeStart(dataOps, source).result().map(DynamicAssetGenerator.GSON_FLAT::toJson).orElse(null);
-            if (cacheKey == null) {
-                return supplier.get();
-            }
-            CacheReference<Either<NativeImage, IOException>> ref;
-            if (cache.containsKey(cacheKey))
-                ref = cache.get(cacheKey);
-            else
-                ref = new CacheReference<>();
-            var result = ref.calcSync(cached -> {
-                if (cached == null) {
-                    try {
-                        NativeImage image = supplier.get();
-                        ref.setHeld(Either.left(image));
-                        NativeImage output = NativeImageHelper.of(image.format(), image.getWidth(), image.getHeight(), false);
-                        output.copyFrom(image);
-                        return Either.left(output);
-                    } catch (IOException e) {
-                        ref.setHeld(Either.right(e));
-                        return Either.right(e);
+            cacheKey = dataOps.digest(TexSource.CODEC, source).result().orElse(null);
+        } catch (RuntimeException e) {
+            DynamicAssetGenerator.LOGGER.warn("Could not cache texture source; something has gone wrong with encoding.", e);
+            return supplier.get();
+        }
+        if (cacheKey == null) {
+            return supplier.get();
+        }
+        EntryKey entryKey = new EntryKey(context.getCacheName(), cacheKey);
+        while (true) {
+            CompletableFuture<ImageHandle> created = new CompletableFuture<>();
+            CompletableFuture<ImageHandle> existing = cache.putIfAbsent(cacheKey, created);
+            if (existing == null) {
+                ImageHandle handle;
+                Map<ResourceLocation, String> digests;
+                try {
+                    Carried carried = carried(context, cacheKey);
+                    if (carried != null) {
+                        stats.reused.incrementAndGet();
+                        InputRecorder.include(carried.digests().keySet());
+                        handle = carried.handle();
+                        digests = carried.digests();
+                    } else {
+                        stats.misses.incrementAndGet();
+                        InputRecorder.Recording recording = InputRecorder.begin();
+                        try {
+                            handle = supplier.get();
+                        } finally {
+                            InputRecorder.end(recording);
+                        }
+                        digests = digests(context, recording.locations());
                     }
-                } else if (cached.left().isPresent()) {
-                    NativeImage image = cached.left().get();
-                    NativeImage output = NativeImageHelper.of(image.format(), image.getWidth(), image.getHeight(), false);
-                    output.copyFrom(image);
-                    return Either.left(output);
-                } else {
-                    return Either.right(cached.right().get());
+                } catch (Throwable t) {
+                    // Anything already waiting sees the failure, but the entry is dropped so that later requests try
+                    // again instead of waiting on it
+                    cache.remove(cacheKey, created);
+                    created.completeExceptionally(t);
+                    throw t;
                 }
-            });
-
-            if (!cache.containsKey(cacheKey))
-                cache.put(cacheKey, ref);
+                ImageHandle output = handle.retain();
+                if (digests != null) {
+                    INPUTS.computeIfAbsent(context.getCacheName(), k -> new ConcurrentHashMap<>()).put(cacheKey, digests);
+                }
+                created.complete(handle);
+                retain(cache, entryKey, handle);
+                return output;
+            }
 
-            if (result.left().isPresent()) {
-                return result.left().get();
+            if (existing.isDone()) {
+                stats.hits.incrementAndGet();
             } else {
-                throw result.right().get();
+                stats.dedupWaits.incrementAndGet();
+            }
+            ImageHandle handle = await(existing);
+            try {
+                ImageHandle output = handle.retain();
+                var inputs = INPUTS.get(context.getCacheName());
+                var digests = inputs == null ? null : inputs.get(cacheKey);
+                InputRecorder.include(digests == null ? null : digests.keySet());
+                synchronized (RETAINED) {
+                    RETAINED.get(entryKey);
+                }
+                return output;
+            } catch (IllegalStateException e) {
+                // Evicted between completion and retention; drop the stale entry if still present and try again.
+                cache.remove(cacheKey, existing);
+            }
+        }
+    }
+
+    // Takes the entry carried over for a key, if every resource it read is unchanged since it was computed
+    private static @Nullable Carried carried(ResourceGenerationContext context, String cacheKey) {
+        var previous = PREVIOUS.get(context.getCacheName());
+        Carried carried = previous == null ? null : previous.remove(cacheKey);
+        if (carried == null) {
+            return null;
+        }
+        // Retained again once it is published as an entry of the current cache
+        synchronized (RETAINED) {
+            Long weight = RETAINED.remove(new EntryKey(context.getCacheName(), cacheKey));
+            if (weight != null) {
+                retainedBytes -= weight;
             }
-        } catch (RuntimeException e) {
-            DynamicAssetGenerator.LOGGER.warn("Could not cache texture source; something has gone wrong with encoding or texture creation.", e);
-            return supplier.get();
         }
+        Map<ResourceLocation, String> current = digests(context, carried.digests().keySet());
+        if (carried.digests().equals(current)) {
+            return carried;
+        }
+        carried.handle().close();
+        return null;
+    }
+
+    private static @Nullable Map<ResourceLocation, String> digests(ResourceGenerationContext context, @Nullable Set<ResourceLocation> locations) {
+        if (locations == null || !DynamicAssetGenerator.getConfig().incrementalReload()) {
+            return null;
+        }
+        Map<ResourceLocation, String> digests = new HashMap<>();
+        try {
+            for (ResourceLocation location : locations) {
+                var resource = context.getResourceSource().getResource(location);
+                digests.put(location, resource == null ? ABSENT : ResourceDigests.digest(context, location, resource));
+            }
+        } catch (IOException | RuntimeException e) {
+            DynamicAssetGenerator.LOGGER.debug("Could not digest inputs of cached texture source", e);
+            return null;
+        }
+        return digests;
+    }
+
+    private static ImageHandle await(CompletableFuture<ImageHandle> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void retain(Map<String, CompletableFuture<ImageHandle>> cache, EntryKey entryKey, ImageHandle handle) {
+        if (MULTI_CACHE.get(entryKey.cacheName()) != cache) {
+            // The cache was reset while this entry was being computed.
+            handle.close();
+            return;
+        }
+        long weight = weight(handle.image());
+        long budget = (long) DynamicAssetGenerator.getConfig().textureCacheBudgetMb() * 1024 * 1024;
+        List<EntryKey> evicted = new ArrayList<>();
+        synchronized (RETAINED) {
+            Long old = RETAINED.put(entryKey, weight);
+            retainedBytes += weight - (old == null ? 0 : old);
+            if (budget > 0) {
+                var iterator = RETAINED.entrySet().iterator();
+                while (retainedBytes > budget && iterator.hasNext()) {
+                    var eldest = iterator.next();
+                    retainedBytes -= eldest.getValue();
+                    evicted.add(eldest.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        // Handles are released outside the lock; images still in use elsewhere stay alive until their last handle closes.
+        for (EntryKey key : evicted) {
+            var victimCache = MULTI_CACHE.get(key.cacheName());
+            var victim = victimCache == null ? null : victimCache.remove(key.key());
+            var victimInputs = INPUTS.get(key.cacheName());
+            if (victimInputs != null) {
+                victimInputs.remove(key.key());
+            }
+            var victimPrevious = PREVIOUS.get(key.cacheName());
+            var carried = victimPrevious == null ? null : victimPrevious.remove(key.key());
+            if (victim != null) {
+                release(victim);
+            }
+            if (carried != null) {
+                carried.handle().close();
+            }
+            if (victim != null || carried != null) {
+                STATS.computeIfAbsent(key.cacheName(), k -> new Stats()).evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static void release(CompletableFuture<ImageHandle> future) {
+        // Entries still being computed are released by their computing thread once it finds the cache reset.
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            future.join().close();
+        }
+    }
+
+    private static long weight(NativeImage image) {
+        return (long) image.getWidth() * image.getHeight() * image.format().components();
     }
 
     public static void reset(ResourceGenerationContext context) {
+        DigestJsonOps.clearMemo(context);
+        NativeImageHelper.reset();
         synchronized (MULTI_CACHE) {
-            Map<String, CacheReference<Either<NativeImage, IOException>>> cache;
-            if ((cache = MULTI_CACHE.get(context.getCacheName())) != null) {
-                cache.forEach((s, e) -> {
-                    if (e.getHeld().left().isPresent()) {
-                        e.getHeld().left().get().close();
+            // Entries carried over last time but not reused since were computed from resources which have changed
+            Map<String, Carried> stale = PREVIOUS.remove(context.getCacheName());
+            if (stale != null) {
+                stale.forEach((s, c) -> c.handle().close());
+            }
+            Map<String, CompletableFuture<ImageHandle>> cache = MULTI_CACHE.remove(context.getCacheName());
+            Map<String, Map<ResourceLocation, String>> inputs = INPUTS.remove(context.getCacheName());
+            Map<String, Carried> carried = new ConcurrentHashMap<>();
+            List<CompletableFuture<ImageHandle>> released = new ArrayList<>();
+            synchronized (RETAINED) {
+                if (cache != null) {
+                    cache.forEach((s, e) -> {
+                        var digests = inputs == null ? null : inputs.get(s);
+                        // An entry which read nothing that was recorded likely read its inputs somewhere recording could
+                        // not see, so it is never assumed to be unchanged. Entries not yet retained are released by
+                        // their computing thread, so cannot be carried.
+                        if (digests != null && !digests.isEmpty() && e.isDone() && !e.isCompletedExceptionally()
+                            && RETAINED.containsKey(new EntryKey(context.getCacheName(), s))) {
+                            carried.put(s, new Carried(e.join(), digests));
+                        } else {
+                            released.add(e);
+                        }
+                    });
+                }
+                // Carried entries remain counted against the budget
+                var iterator = RETAINED.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    var entry = iterator.next();
+                    if (entry.getKey().cacheName().equals(context.getCacheName()) && !carried.containsKey(entry.getKey().key())) {
+                        retainedBytes -= entry.getValue();
+                        iterator.remove();
                     }
-                });
-                MULTI_CACHE.remove(context.getCacheName());
+                }
+            }
+            if (!carried.isEmpty()) {
+                PREVIOUS.put(context.getCacheName(), carried);
+            }
+            released.forEach(TexSourceCache::release);
+            Stats stats = STATS.remove(context.getCacheName());
+            if (stats != null) {
+                stats.report(context.getCacheName());
             }
         }
     }
 
+    private record EntryKey(ResourceLocation cacheName, String key) {}
+
+    private record Carried(ImageHandle handle, Map<ResourceLocation, String> digests) {}
+
+    private static final class Stats {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong reused = new AtomicLong();
+        private final AtomicLong dedupWaits = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        private void report(ResourceLocation cacheName) {
+            String message = "Texture source cache for {}: {} hits, {} misses, {} reused from the last reload, {} deduplicated waits, {} evictions";
+            if (DynamicAssetGenerator.TIME_RESOURCES) {
+                DynamicAssetGenerator.LOGGER.info(message, cacheName, hits.get(), misses.get(), reused.get(), dedupWaits.get(), evictions.get());
+            } else {
+                DynamicAssetGenerator.LOGGER.debug(message, cacheName, hits.get(), misses.get(), reused.get(), dedupWaits.get(), evictions.get());
+            }
+        }
+    }
 }
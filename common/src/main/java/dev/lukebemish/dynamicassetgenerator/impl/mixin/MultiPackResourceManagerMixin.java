@@ -5,6 +5,7 @@
 
 package dev.lukebemish.dynamicassetgenerator.impl.mixin;
 
+import dev.lukebemish.dynamicassetgenerator.impl.EagerGeneration;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceFinder;
 import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.PackType;
@@ -20,6 +21,7 @@ public class MultiPackResourceManagerMixin {
     @ModifyVariable(method = "<init>", at = @At(value = "HEAD"), argsOnly = true)
     private static List<PackResources> dynamic_asset_generator$loadPacks(List<PackResources> packs, PackType type, List<PackResources> packsAgain) {
         ResourceFinder.INSTANCES[type.ordinal()] = packs::stream;
+        EagerGeneration.prepare(packs);
         return packs;
     }
 }
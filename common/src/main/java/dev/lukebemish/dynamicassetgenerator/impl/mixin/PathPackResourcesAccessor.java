@@ -0,0 +1,18 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.mixin;
+
+import net.minecraft.server.packs.PathPackResources;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.nio.file.Path;
+
+@Mixin(PathPackResources.class)
+public interface PathPackResourcesAccessor {
+    @Accessor(value = "root")
+    Path dynamic_asset_generator$getRoot();
+}
@@ -5,6 +5,7 @@
 
 package dev.lukebemish.dynamicassetgenerator.impl.mixin;
 
+import dev.lukebemish.dynamicassetgenerator.impl.EagerGeneration;
 import dev.lukebemish.dynamicassetgenerator.impl.ResourceFinder;
 import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.PackType;
@@ -35,5 +36,6 @@ public abstract class ReloadableResourceManagerMixin {
                                                             List<PackResources> packs,
                                                             CallbackInfoReturnable<ReloadInstance> cir) {
         ResourceFinder.INSTANCES[type.ordinal()] = packs::stream;
+        EagerGeneration.prepare(packs);
     }
 }
@@ -6,9 +6,11 @@
 package dev.lukebemish.dynamicassetgenerator.impl.platform.services;
 
 import java.nio.file.Path;
+import java.util.Map;
 
 public interface Platform {
     Path getConfigFolder();
     Path getModDataFolder();
     String getModVersion();
+    Map<String, String> getModVersions();
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import com.google.common.base.Suppliers;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Removes cached data which is no longer used. Every launch counts as a session; each cache directory records the last
+ * session it was used in, and once per launch, on a background thread, directories unused for more than the configured
+ * number of sessions are deleted, followed by the least recently used directories if the caches together exceed the
+ * configured disk budget. Directories in use during the current session are never removed.
+ */
+public final class CacheGarbageCollector {
+    private CacheGarbageCollector() {}
+
+    private static final String SESSION_FILE = "cache_session";
+    static final String MARKER_FILE = ".last_session";
+    private static final String[] ROOTS = {"keyed_cache", "cache"};
+
+    private static final Object LOCK = new Object();
+    private static final Set<Path> IN_USE = ConcurrentHashMap.newKeySet();
+    private static final Supplier<Integer> SESSION = Suppliers.memoize(CacheGarbageCollector::nextSession);
+
+    /**
+     * @return the number of the current session, counting up from 1 across launches
+     */
+    public static int session() {
+        return SESSION.get();
+    }
+
+    /**
+     * @return the most sessions cached data may go unused before it is removed, or 0 if it is kept indefinitely
+     */
+    public static int maxIdleSessions() {
+        return DynamicAssetGenerator.getConfig().cacheMaxIdleSessions();
+    }
+
+    /**
+     * Records that a cache directory is used in this session, protecting it from collection. Waits for any collection
+     * of the directory already in progress.
+     * @param directory the cache directory being used
+     */
+    public static void markInUse(Path directory) {
+        if (IN_USE.contains(directory)) {
+            return;
+        }
+        synchronized (LOCK) {
+            if (IN_USE.add(directory)) {
+                try {
+                    Files.createDirectories(directory);
+                    Files.writeString(directory.resolve(MARKER_FILE), Integer.toString(session()));
+                } catch (IOException e) {
+                    DynamicAssetGenerator.LOGGER.warn("Could not record use of cache {}", directory, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts collecting unused cache directories on a background thread.
+     */
+    public static void start() {
+        Thread thread = new Thread(() -> {
+            try {
+                collect();
+            } catch (IOException | RuntimeException e) {
+                DynamicAssetGenerator.LOGGER.error("Issue collecting unused cached data", e);
+            }
+        }, "DynamicAssetGenerator-CacheCollector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static int nextSession() {
+        Path path = Services.PLATFORM.getModDataFolder().resolve(SESSION_FILE);
+        int session = 1;
+        try {
+            if (Files.exists(path)) {
+                session = Integer.parseInt(Files.readString(path).trim()) + 1;
+            }
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, Integer.toString(session));
+        } catch (IOException | NumberFormatException e) {
+            DynamicAssetGenerator.LOGGER.warn("Could not update cache session count", e);
+        }
+        return session;
+    }
+
+    private static void collect() throws IOException {
+        int session = session();
+        int maxIdle = maxIdleSessions();
+        long budget = (long) DynamicAssetGenerator.getConfig().cacheBudgetMb() * 1024 * 1024;
+        if (maxIdle <= 0 && budget <= 0) {
+            return;
+        }
+
+        List<CacheDirectory> directories = new ArrayList<>();
+        for (String root : ROOTS) {
+            Path rootPath = Services.PLATFORM.getModDataFolder().resolve(root);
+            if (!Files.isDirectory(rootPath)) continue;
+            List<Path> found = new ArrayList<>();
+            try (Stream<Path> files = Files.walk(rootPath)) {
+                files.forEach(file -> {
+                    String name = file.getFileName().toString();
+                    if (name.equals(MARKER_FILE)) {
+                        found.add(file.getParent());
+                    } else if (name.equals(KeyedCacheStore.DATA_FILE) && !Files.exists(file.resolveSibling(MARKER_FILE))) {
+                        // Keyed caches written before use was recorded start aging from this session
+                        found.add(file.getParent());
+                    }
+                });
+            }
+            for (Path directory : found) {
+                directories.add(new CacheDirectory(directory, lastSession(directory.resolve(MARKER_FILE), session), size(directory)));
+            }
+        }
+
+        long total = directories.stream().mapToLong(CacheDirectory::size).sum();
+        long reclaimed = 0;
+        int removed = 0;
+        directories.sort(Comparator.comparingInt(CacheDirectory::lastSession));
+        for (CacheDirectory directory : directories) {
+            boolean idle = maxIdle > 0 && session - directory.lastSession() > maxIdle;
+            boolean overBudget = budget > 0 && total - reclaimed > budget;
+            if (idle || overBudget) {
+                try {
+                    if (delete(directory.path())) {
+                        reclaimed += directory.size();
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    DynamicAssetGenerator.LOGGER.warn("Could not remove unused cache {}", directory.path(), e);
+                }
+            }
+        }
+
+        String message = "Collected {} unused cache directories, reclaiming {} bytes; {} bytes of cached data remain";
+        if (DynamicAssetGenerator.TIME_RESOURCES || removed > 0) {
+            DynamicAssetGenerator.LOGGER.info(message, removed, reclaimed, total - reclaimed);
+        } else {
+            DynamicAssetGenerator.LOGGER.debug(message, removed, reclaimed, total - reclaimed);
+        }
+    }
+
+    private static int lastSession(Path marker, int session) {
+        try {
+            if (Files.exists(marker)) {
+                return Integer.parseInt(Files.readString(marker).trim());
+            }
+            Files.writeString(marker, Integer.toString(session));
+        } catch (IOException | NumberFormatException e) {
+            DynamicAssetGenerator.LOGGER.debug("Could not read last use of cache {}", marker.getParent(), e);
+        }
+        return session;
+    }
+
+    private static boolean delete(Path directory) throws IOException {
+        Path trash;
+        synchronized (LOCK) {
+            if (!Files.exists(directory) || IN_USE.stream().anyMatch(used -> used.startsWith(directory))) {
+                return false;
+            }
+            // Moved aside while locked, so the directory can be recreated immediately if a cache starts using it
+            trash = directory.resolveSibling(directory.getFileName() + "." + System.nanoTime() + ".collected");
+            Files.move(directory, trash);
+        }
+        Files.walkFileTree(trash, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return true;
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record CacheDirectory(Path path, int lastSession, long size) {}
+}
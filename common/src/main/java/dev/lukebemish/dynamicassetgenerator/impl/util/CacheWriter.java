@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import com.google.common.hash.HashCode;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Persists cached resources on a background thread, so that generating threads never wait on the disk. Writes are
+ * queued and performed in batches: each directory is created once per batch, and outputs for a keyed cache are stored
+ * together, with a single force of its data. Files are written to a temporary sibling and then moved into place, so a
+ * cache file is only ever visible with its complete contents. The contents waiting to be written are bounded; once the
+ * bound is reached, producers wait for the writer to catch up.
+ */
+public final class CacheWriter {
+    private CacheWriter() {}
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int MAX_QUEUED_KIB = 64 * 1024;
+
+    private static final BlockingQueue<Task> QUEUE = new LinkedBlockingQueue<>();
+    // Kibibytes of contents which may still be queued
+    private static final Semaphore QUEUED = new Semaphore(MAX_QUEUED_KIB);
+    private static volatile Thread thread;
+    private static boolean hookRegistered;
+
+    /**
+     * Queues the contents of a file in the full cache to be written.
+     * @param path the location of the cache file
+     * @param bytes the contents to write
+     */
+    public static void write(Path path, byte[] bytes) {
+        submit(new FileWrite(path, bytes));
+    }
+
+    /**
+     * Queues an output to be stored in a keyed cache.
+     * @param store the store to write to
+     * @param location the location of the output
+     * @param key the digest of the cache key to store the output with
+     * @param bytes the contents of the output
+     */
+    public static void write(KeyedCacheStore store, ResourceLocation location, HashCode key, byte[] bytes) {
+        submit(new KeyedWrite(store, new KeyedCacheStore.Write(location, key, bytes)));
+    }
+
+    /**
+     * Waits for every write queued so far to complete.
+     * @param timeout the longest time to wait, in seconds
+     */
+    public static void flush(long timeout) {
+        Thread worker = thread;
+        if (worker == null || !worker.isAlive()) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        QUEUE.add(new Marker(done));
+        try {
+            done.get(timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            DynamicAssetGenerator.LOGGER.warn("Timed out waiting for cached resources to be written");
+        }
+    }
+
+    /**
+     * Registers the single shutdown hook for cache persistence, if it has not been already. The JVM runs shutdown hooks
+     * concurrently and in no particular order, so writes still queued are flushed and keyed cache stores closed in turn
+     * by one hook.
+     */
+    static synchronized void registerShutdownHook() {
+        if (!hookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                flush(SHUTDOWN_TIMEOUT_SECONDS);
+                KeyedCacheStore.closeAll();
+            }, "DynamicAssetGenerator-CacheWriter-Shutdown"));
+            hookRegistered = true;
+        }
+    }
+
+    private static void submit(Task task) {
+        Thread worker = start();
+        if (!worker.isAlive()) {
+            // Should the writer ever die, write on the calling thread rather than queue writes nothing will take
+            runBatch(List.of(task));
+            return;
+        }
+        QUEUED.acquireUninterruptibly(task.weight());
+        QUEUE.add(task);
+    }
+
+    private static Thread start() {
+        Thread worker = thread;
+        if (worker == null) {
+            synchronized (CacheWriter.class) {
+                worker = thread;
+                if (worker == null) {
+                    worker = new Thread(CacheWriter::run, "DynamicAssetGenerator-CacheWriter");
+                    worker.setDaemon(true);
+                    worker.start();
+                    registerShutdownHook();
+                    thread = worker;
+                }
+            }
+        }
+        return worker;
+    }
+
+    private static void run() {
+        List<Task> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            QUEUE.drainTo(batch);
+            try {
+                runBatch(batch);
+            } catch (Throwable t) {
+                // Keep the writer alive, so that producers waiting for room in the queue are not left waiting forever
+                DynamicAssetGenerator.LOGGER.error("Could not write a batch of cached resources...", t);
+                batch.forEach(task -> {
+                    if (task instanceof Marker marker) {
+                        marker.run();
+                    }
+                });
+            } finally {
+                batch.forEach(task -> QUEUED.release(task.weight()));
+                batch.clear();
+            }
+        }
+    }
+
+    private static void runBatch(List<Task> batch) {
+        Set<Path> directories = new HashSet<>();
+        Map<KeyedCacheStore, List<KeyedCacheStore.Write>> keyed = new LinkedHashMap<>();
+        List<Marker> markers = new ArrayList<>();
+        for (Task task : batch) {
+            if (task instanceof FileWrite fileWrite) {
+                try {
+                    if (directories.add(fileWrite.path().getParent())) {
+                        Files.createDirectories(fileWrite.path().getParent());
+                    }
+                    fileWrite.run();
+                } catch (IOException | RuntimeException e) {
+                    DynamicAssetGenerator.LOGGER.error("Could not write cached resource {}...", fileWrite, e);
+                }
+            } else if (task instanceof KeyedWrite keyedWrite) {
+                keyed.computeIfAbsent(keyedWrite.store(), k -> new ArrayList<>()).add(keyedWrite.write());
+            } else if (task instanceof Marker marker) {
+                markers.add(marker);
+            }
+        }
+        keyed.forEach((store, writes) -> {
+            try {
+                store.write(writes);
+            } catch (IOException | RuntimeException e) {
+                DynamicAssetGenerator.LOGGER.error("Could not write cached resources {}...", writes.stream().map(KeyedCacheStore.Write::location).toList(), e);
+            }
+        });
+        // Markers complete once everything queued alongside them is written
+        markers.forEach(Marker::run);
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private sealed interface Task {
+        /**
+         * @return the number of kibibytes of contents this task holds on to until it is written
+         */
+        default int weight() {
+            return 0;
+        }
+    }
+
+    private static int weight(byte[] bytes) {
+        return Math.min(MAX_QUEUED_KIB, Math.max(1, (bytes.length + 1023) / 1024));
+    }
+
+    private record FileWrite(Path path, byte[] bytes) implements Task {
+        // Parent directories are created by the writer before the file is written
+        private void run() throws IOException {
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, bytes);
+                move(temp, path);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        @Override
+        public int weight() {
+            return CacheWriter.weight(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+
+    private record KeyedWrite(KeyedCacheStore store, KeyedCacheStore.Write write) implements Task {
+        @Override
+        public int weight() {
+            return CacheWriter.weight(write.bytes());
+        }
+    }
+
+    private record Marker(CompletableFuture<Void> done) implements Task {
+        private void run() {
+            done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import net.minecraft.resources.ResourceLocation;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Records the resources read on the current thread while a cached output is computed, so the output can be reused
+ * across reloads as long as those resources are unchanged. Recordings nest: resources read while computing an inner
+ * output are also attributed to every output computing around it. Reads which cannot be replayed, such as listings or
+ * whole resource stacks, mark every enclosing recording as untracked. Reads made on other threads cannot be attributed
+ * to a recording, so work forked onto other threads also marks every recording open on the forking thread as untracked.
+ */
+public final class InputRecorder {
+    private InputRecorder() {}
+
+    private static final ThreadLocal<Deque<Recording>> RECORDINGS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Starts recording the resources read on this thread. Must be paired with {@link #end}.
+     * @return the new recording
+     */
+    public static Recording begin() {
+        Recording recording = new Recording();
+        RECORDINGS.get().push(recording);
+        return recording;
+    }
+
+    /**
+     * Stops a recording, attributing everything it recorded to the recording around it, if any.
+     * @param recording the recording to stop; must be the most recently started on this thread
+     */
+    public static void end(Recording recording) {
+        Deque<Recording> recordings = RECORDINGS.get();
+        if (recordings.peek() != recording) {
+            throw new IllegalStateException("Input recordings ended out of order");
+        }
+        recordings.pop();
+        Recording outer = recordings.peek();
+        if (outer != null) {
+            if (recording.untracked) {
+                outer.untracked = true;
+            } else {
+                outer.locations.addAll(recording.locations);
+            }
+        }
+    }
+
+    /**
+     * Records that a single resource was looked up, whether or not it was found.
+     * @param location the location of the resource
+     */
+    public static void read(ResourceLocation location) {
+        Recording recording = RECORDINGS.get().peek();
+        if (recording != null) {
+            recording.locations.add(location);
+        }
+    }
+
+    /**
+     * Attributes the inputs of an output reused from cache to the outputs currently computing.
+     * @param locations the inputs of the reused output, or null if they were not tracked
+     */
+    public static void include(@Nullable Collection<ResourceLocation> locations) {
+        Recording recording = RECORDINGS.get().peek();
+        if (recording != null) {
+            if (locations == null) {
+                recording.untracked = true;
+            } else {
+                recording.locations.addAll(locations);
+            }
+        }
+    }
+
+    /**
+     * Records a read which cannot be replayed to check for changes.
+     */
+    public static void untracked() {
+        Recording recording = RECORDINGS.get().peek();
+        if (recording != null) {
+            recording.untracked = true;
+        }
+    }
+
+    /**
+     * Records that work is being forked onto other threads, whose reads cannot be recorded.
+     */
+    public static void forked() {
+        for (Recording recording : RECORDINGS.get()) {
+            recording.untracked = true;
+        }
+    }
+
+    public static final class Recording {
+        private final Set<ResourceLocation> locations = new LinkedHashSet<>();
+        private boolean untracked;
+
+        private Recording() {}
+
+        /**
+         * @return the locations read during this recording, or null if something was read which cannot be tracked
+         */
+        public @Nullable Set<ResourceLocation> locations() {
+            return untracked ? null : Collections.unmodifiableSet(locations);
+        }
+    }
+}
@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+import net.minecraft.resources.ResourceLocation;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A single-file store for the keyed cache of one {@link dev.lukebemish.dynamicassetgenerator.api.ResourceCache}.
+ * Contents are appended to a data file and deduplicated by content digest; a sorted index, read through a memory
+ * mapping, maps the digest of each output location to its cache key and the span of the data file holding its
+ * contents. Entries written during a session are appended to a journal, which is merged into the index, alongside any
+ * compaction of the data file, the next time the store is opened. The session each location was last used in is
+ * recorded as well, and entries unused for longer than {@link CacheGarbageCollector#maxIdleSessions()} are dropped
+ * when the store is opened.
+ * <p>
+ * The data file, index and journal in use are named by generation in a small state file. Rewrites and compactions write
+ * files of a new generation alongside the current ones, and then switch to them by atomically replacing the state file,
+ * so a crash at any point leaves a consistent set of files. Data is forced to disk before any journal record referring
+ * to it is written, and the contents of an entry are checked against its digest whenever it is read.
+ * <p>
+ * Keyed caches used to store each output as its own file, beside a {@code .dynassetgen} file holding its key. Those
+ * files are never read by the store, and are deleted the first time it is opened.
+ */
+public final class KeyedCacheStore {
+    private static final int MAGIC = 0x44414743;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int DIGEST_SIZE = 32;
+    private static final int RECORD_SIZE = DIGEST_SIZE * 3 + Long.BYTES + Integer.BYTES;
+
+    private static final int ACCESS_RECORD_SIZE = DIGEST_SIZE + Integer.BYTES;
+
+    static final String DATA_FILE = "data.bin";
+    private static final String INDEX_FILE = "index.bin";
+    private static final String JOURNAL_FILE = "journal.bin";
+    private static final String ACCESS_FILE = "access.bin";
+    private static final String STATE_FILE = "state.bin";
+    private static final int STATE_SIZE = HEADER_SIZE + Integer.BYTES * 2;
+
+    private static final Map<ResourceLocation, KeyedCacheStore> STORES = new ConcurrentHashMap<>();
+    private static final Pattern STORE_FILE = Pattern.compile("(data|index|journal)(\\.\\d+)?\\.bin|(data|index|access|state)\\.bin\\.tmp");
+
+    private final @Nullable MappedByteBuffer index;
+    private final int indexCount;
+    private final FileChannel data;
+    private final FileChannel journal;
+    private final FileChannel access;
+    private final Set<HashCode> touched = ConcurrentHashMap.newKeySet();
+    private long dataSize;
+    private final Map<HashCode, Entry> overlay = new ConcurrentHashMap<>();
+    private final Map<HashCode, Span> contents;
+
+    private KeyedCacheStore(@Nullable MappedByteBuffer index, int indexCount, FileChannel data, FileChannel journal, FileChannel access, long dataSize, Map<HashCode, Span> contents) {
+        this.index = index;
+        this.indexCount = indexCount;
+        this.data = data;
+        this.journal = journal;
+        this.access = access;
+        this.dataSize = dataSize;
+        this.contents = contents;
+    }
+
+    /**
+     * @return the store for the given cache, opening it if it has not yet been opened this session
+     */
+    public static KeyedCacheStore of(ResourceLocation cacheName) throws IOException {
+        KeyedCacheStore store = STORES.get(cacheName);
+        if (store != null) {
+            return store;
+        }
+        synchronized (STORES) {
+            store = STORES.get(cacheName);
+            if (store == null) {
+                CacheWriter.registerShutdownHook();
+                Path directory = DynamicAssetGenerator.cache(cacheName, true);
+                CacheGarbageCollector.markInUse(directory);
+                store = open(cacheName, directory);
+                STORES.put(cacheName, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Finds the entry for a location, if one exists with a matching cache key.
+     * @param location the location of the cached output
+     * @param key the digest of the cache key the output must have been stored with
+     * @return the matching entry, or null if none exists
+     */
+    public @Nullable Entry find(ResourceLocation location, HashCode key) {
+        HashCode locationDigest = digest(location);
+        Entry entry = overlay.get(locationDigest);
+        if (entry == null) {
+            entry = search(locationDigest);
+        }
+        if (entry != null && entry.key().equals(key)) {
+            touch(locationDigest);
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * @return a stream of the contents stored for the provided entry
+     * @throws CorruptEntryException if the stored contents do not match the entry's content digest
+     */
+    public InputStream open(Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, entry.offset() + buffer.position()) < 0) {
+                throw new CorruptEntryException("Keyed cache data ended before the end of an entry");
+            }
+        }
+        if (!Hashing.sha256().hashBytes(buffer.array()).equals(entry.content())) {
+            throw new CorruptEntryException("Keyed cache data did not match the digest of an entry");
+        }
+        return new ByteArrayInputStream(buffer.array());
+    }
+
+    /**
+     * Closes every open store. Stores must not be used afterwards.
+     */
+    public static void closeAll() {
+        synchronized (STORES) {
+            STORES.values().forEach(store -> {
+                synchronized (store) {
+                    try {
+                        store.data.close();
+                        store.journal.close();
+                        synchronized (store.access) {
+                            store.access.close();
+                        }
+                    } catch (IOException e) {
+                        DynamicAssetGenerator.LOGGER.warn("Could not close keyed cache store", e);
+                    }
+                }
+            });
+            STORES.clear();
+        }
+    }
+
+    /**
+     * Stores the contents of several outputs, replacing any existing entries for their locations. New contents are
+     * appended and forced to disk together, and then journaled in a single write.
+     * @param writes the outputs to store, in order; later writes to a location replace earlier ones
+     */
+    public synchronized void write(List<Write> writes) throws IOException {
+        Map<HashCode, Span> added = new HashMap<>();
+        List<Map.Entry<HashCode, Entry>> entries = new ArrayList<>(writes.size());
+        for (Write write : writes) {
+            HashCode content = Hashing.sha256().hashBytes(write.bytes());
+            Span span = contents.get(content);
+            if (span == null) {
+                span = added.get(content);
+            }
+            if (span == null) {
+                long offset = dataSize;
+                ByteBuffer buffer = ByteBuffer.wrap(write.bytes());
+                while (buffer.hasRemaining()) {
+                    dataSize += data.write(buffer, dataSize);
+                }
+                span = new Span(offset, write.bytes().length);
+                added.put(content, span);
+            }
+            entries.add(Map.entry(digest(write.location()), new Entry(write.key(), content, span.offset(), span.length())));
+        }
+        if (!added.isEmpty()) {
+            // The journal must never refer to data which might not have reached the disk
+            data.force(false);
+            contents.putAll(added);
+        }
+        ByteBuffer records = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        for (var entry : entries) {
+            putRecord(records, entry.getKey(), entry.getValue());
+        }
+        records.flip();
+        while (records.hasRemaining()) {
+            journal.write(records);
+        }
+        for (var entry : entries) {
+            overlay.put(entry.getKey(), entry.getValue());
+            touch(entry.getKey());
+        }
+    }
+
+    private void touch(HashCode location) {
+        if (!touched.add(location)) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(ACCESS_RECORD_SIZE);
+        record.put(location.asBytes()).putInt(CacheGarbageCollector.session()).flip();
+        try {
+            synchronized (access) {
+                while (record.hasRemaining()) {
+                    access.write(record);
+                }
+            }
+        } catch (IOException e) {
+            DynamicAssetGenerator.LOGGER.warn("Could not record use of cached resource", e);
+        }
+    }
+
+    private @Nullable Entry search(HashCode location) {
+        if (index == null) {
+            return null;
+        }
+        byte[] target = location.asBytes();
+        int low = 0;
+        int high = indexCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int base = HEADER_SIZE + mid * RECORD_SIZE;
+            int comparison = 0;
+            for (int i = 0; i < DIGEST_SIZE && comparison == 0; i++) {
+                comparison = Byte.compareUnsigned(index.get(base + i), target[i]);
+            }
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return getEntry(index, base + DIGEST_SIZE);
+            }
+        }
+        return null;
+    }
+
+    private static HashCode digest(ResourceLocation location) {
+        return Hashing.sha256().hashString(location.toString(), StandardCharsets.UTF_8);
+    }
+
+    private static KeyedCacheStore open(ResourceLocation cacheName, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path statePath = directory.resolve(STATE_FILE);
+        State state = readState(statePath);
+        if (state == null) {
+            // The state is only ever replaced atomically, so this is not a torn write; start over with a fresh store
+            DynamicAssetGenerator.LOGGER.warn("Keyed cache state for {} is unreadable; discarding the cache", cacheName);
+            deleteUnused(directory, Set.of());
+            state = new State(0, 0);
+        }
+        Path dataPath = directory.resolve(state.dataFile());
+        Path indexPath = directory.resolve(state.indexFile());
+        Path journalPath = directory.resolve(state.journalFile());
+        Path accessPath = directory.resolve(ACCESS_FILE);
+        deleteUnused(directory, Set.of(state.dataFile(), state.indexFile(), state.journalFile()));
+        deleteLegacy(cacheName, directory);
+
+        long dataSize = Files.exists(dataPath) ? Files.size(dataPath) : 0;
+        Map<HashCode, Entry> entries = new HashMap<>();
+        boolean rewrite = !readRecords(indexPath, entries) || !Files.exists(indexPath) || (Files.exists(journalPath) && Files.size(journalPath) > HEADER_SIZE);
+        readRecords(journalPath, entries);
+        entries.values().removeIf(entry -> entry.offset() + entry.length() > dataSize);
+
+        int session = CacheGarbageCollector.session();
+        int maxIdle = CacheGarbageCollector.maxIdleSessions();
+        Map<HashCode, Integer> lastUsed = new HashMap<>();
+        int accessRecords = readAccess(accessPath, lastUsed);
+        int stale = 0;
+        if (maxIdle > 0) {
+            int before = entries.size();
+            entries.keySet().removeIf(location -> session - lastUsed.getOrDefault(location, session) > maxIdle);
+            stale = before - entries.size();
+            rewrite |= stale > 0;
+        }
+
+        Map<Span, List<HashCode>> spans = new HashMap<>();
+        entries.forEach((location, entry) -> spans.computeIfAbsent(new Span(entry.offset(), entry.length()), s -> new ArrayList<>()).add(location));
+        long liveSize = spans.keySet().stream().mapToLong(Span::length).sum();
+        long finalDataSize = dataSize;
+        State next = state;
+        if (dataSize - liveSize > liveSize) {
+            next = new State(state.dataGeneration() + 1, state.indexGeneration());
+            finalDataSize = compact(dataPath, directory.resolve(next.dataFile()), entries, spans);
+            rewrite = true;
+        }
+
+        if (rewrite) {
+            next = new State(next.dataGeneration(), state.indexGeneration() + 1);
+            writeIndex(directory.resolve(next.indexFile()), entries);
+            writeState(statePath, next);
+            // The old files are no longer referenced; if deleting them fails, they are removed the next time the store
+            // is opened
+            if (next.dataGeneration() != state.dataGeneration()) {
+                Files.deleteIfExists(dataPath);
+            }
+            Files.deleteIfExists(indexPath);
+            Files.deleteIfExists(journalPath);
+            dataPath = directory.resolve(next.dataFile());
+            indexPath = directory.resolve(next.indexFile());
+            journalPath = directory.resolve(next.journalFile());
+        }
+        if (rewrite || accessRecords != entries.size()) {
+            writeAccess(accessPath, entries.keySet(), lastUsed, session);
+        }
+        if (stale > 0) {
+            DynamicAssetGenerator.LOGGER.info("Removed {} unused entries from keyed cache {}; compaction reclaimed {} bytes", stale, cacheName, dataSize - finalDataSize);
+        }
+
+        MappedByteBuffer index = null;
+        int indexCount = 0;
+        long indexSize = Files.exists(indexPath) ? Files.size(indexPath) : 0;
+        if (indexSize > HEADER_SIZE) {
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                index = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+            }
+            indexCount = (int) ((indexSize - HEADER_SIZE) / RECORD_SIZE);
+        }
+
+        Map<HashCode, Span> contents = new ConcurrentHashMap<>();
+        entries.values().forEach(entry -> contents.put(entry.content(), new Span(entry.offset(), entry.length())));
+
+        FileChannel data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (journal.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                journal.write(header);
+            }
+        }
+        FileChannel access = FileChannel.open(accessPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new KeyedCacheStore(index, indexCount, data, journal, access, finalDataSize, contents);
+    }
+
+    /**
+     * Reads the generations currently in use; stores written before generations were recorded use the first.
+     * @return the generations in use, or null if the state file is not in a readable format
+     */
+    private static @Nullable State readState(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new State(0, 0);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < STATE_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        return new State(buffer.getInt(), buffer.getInt());
+    }
+
+    private static void writeState(Path path, State state) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STATE_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(state.dataGeneration()).putInt(state.indexGeneration()).flip();
+        Path tempPath = path.resolveSibling(STATE_FILE + ".tmp");
+        write(tempPath, buffer);
+        move(tempPath, path);
+    }
+
+    // Removes files left behind by rewrites which were interrupted, or whose old files could not be deleted
+    private static void deleteUnused(Path directory, Set<String> used) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (Files.isRegularFile(file) && STORE_FILE.matcher(name).matches() && !used.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // Outputs were stored as files in subdirectories by namespace; subdirectories which hold a cache of their own, as
+    // the directories of caches with nested names do, are left alone
+    private static void deleteLegacy(ResourceLocation cacheName, Path directory) throws IOException {
+        int[] deleted = {0};
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.getFileName().toString().endsWith(".collected")) {
+                    // Being deleted by the garbage collector
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!dir.equals(directory) && (Files.exists(dir.resolve(STATE_FILE)) || Files.exists(dir.resolve(DATA_FILE)) || Files.exists(dir.resolve(CacheGarbageCollector.MARKER_FILE)))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!file.getParent().equals(directory) && attrs.isRegularFile()) {
+                    Files.delete(file);
+                    deleted[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, @Nullable IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                if (!dir.equals(directory)) {
+                    try (var children = Files.list(dir)) {
+                        if (children.findAny().isEmpty()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (deleted[0] > 0) {
+            DynamicAssetGenerator.LOGGER.info("Removed {} files left over from the old keyed cache layout of {}", deleted[0], cacheName);
+        }
+    }
+
+    /**
+     * Reads all complete records from a file into the provided map, with later records replacing earlier ones.
+     * @return false if the file exists but is not in a readable format
+     */
+    private static boolean readRecords(Path path, Map<HashCode, Entry> entries) throws IOException {
+        if (!Files.exists(path)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return false;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            byte[] location = new byte[DIGEST_SIZE];
+            while (buffer.remaining() >= RECORD_SIZE) {
+                buffer.get(location);
+                entries.put(HashCode.fromBytes(location), getEntry(buffer, buffer.position()));
+                buffer.position(buffer.position() + RECORD_SIZE - DIGEST_SIZE);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the session each location was last used in into the provided map, keeping the latest for each location.
+     * @return the number of records read, or -1 if the file is missing or unreadable
+     */
+    private static int readAccess(Path path, Map<HashCode, Integer> lastUsed) throws IOException {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return -1;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return -1;
+            }
+            byte[] location = new byte[DIGEST_SIZE];
+            int count = 0;
+            while (buffer.remaining() >= ACCESS_RECORD_SIZE) {
+                buffer.get(location);
+                lastUsed.merge(HashCode.fromBytes(location), buffer.getInt(), Math::max);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static void writeAccess(Path accessPath, Set<HashCode> locations, Map<HashCode, Integer> lastUsed, int session) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + locations.size() * ACCESS_RECORD_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (HashCode location : locations) {
+            // Entries from before use was recorded start aging from this session
+            buffer.put(location.asBytes()).putInt(lastUsed.getOrDefault(location, session));
+        }
+        buffer.flip();
+        Path tempPath = accessPath.resolveSibling(ACCESS_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+        move(tempPath, accessPath);
+    }
+
+    private static long compact(Path dataPath, Path compactedPath, Map<HashCode, Entry> entries, Map<Span, List<HashCode>> spans) throws IOException {
+        long position = 0;
+        try (FileChannel in = FileChannel.open(dataPath, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Span> ordered = new ArrayList<>(spans.keySet());
+            ordered.sort(Comparator.comparingLong(Span::offset));
+            for (Span span : ordered) {
+                long transferred = 0;
+                while (transferred < span.length()) {
+                    transferred += in.transferTo(span.offset() + transferred, span.length() - transferred, out);
+                }
+                for (HashCode location : spans.get(span)) {
+                    Entry old = entries.get(location);
+                    entries.put(location, new Entry(old.key(), old.content(), position, old.length()));
+                }
+                position += span.length();
+            }
+            out.force(false);
+        }
+        return position;
+    }
+
+    private static void writeIndex(Path indexPath, Map<HashCode, Entry> entries) throws IOException {
+        List<Map.Entry<HashCode, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        sorted.sort((a, b) -> Arrays.compareUnsigned(a.getKey().asBytes(), b.getKey().asBytes()));
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (var entry : sorted) {
+            putRecord(buffer, entry.getKey(), entry.getValue());
+        }
+        buffer.flip();
+        write(indexPath, buffer);
+    }
+
+    private static void write(Path path, ByteBuffer buffer) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void putRecord(ByteBuffer buffer, HashCode location, Entry entry) {
+        buffer.put(location.asBytes());
+        buffer.put(entry.key().asBytes());
+        buffer.put(entry.content().asBytes());
+        buffer.putLong(entry.offset());
+        buffer.putInt(entry.length());
+    }
+
+    private static Entry getEntry(ByteBuffer buffer, int position) {
+        byte[] key = new byte[DIGEST_SIZE];
+        byte[] content = new byte[DIGEST_SIZE];
+        buffer.get(position, key);
+        buffer.get(position + DIGEST_SIZE, content);
+        long offset = buffer.getLong(position + DIGEST_SIZE * 2);
+        int length = buffer.getInt(position + DIGEST_SIZE * 2 + Long.BYTES);
+        return new Entry(HashCode.fromBytes(key), HashCode.fromBytes(content), offset, length);
+    }
+
+    /**
+     * A single cached output.
+     * @param key the digest of the cache key the output was stored with
+     * @param content the digest of the output's contents
+     * @param offset the offset of the contents in the data file
+     * @param length the length of the contents
+     */
+    public record Entry(HashCode key, HashCode content, long offset, int length) {}
+
+    /**
+     * The contents of an output to store.
+     * @param location the location of the output
+     * @param key the digest of the cache key to store the output with
+     * @param bytes the contents of the output
+     */
+    public record Write(ResourceLocation location, HashCode key, byte[] bytes) {}
+
+    private record Span(long offset, int length) {}
+
+    private record State(int dataGeneration, int indexGeneration) {
+        String dataFile() {
+            return file(DATA_FILE, dataGeneration);
+        }
+
+        String indexFile() {
+            return file(INDEX_FILE, indexGeneration);
+        }
+
+        // Each journal holds records made against the index of the same generation
+        String journalFile() {
+            return file(JOURNAL_FILE, indexGeneration);
+        }
+
+        private static String file(String name, int generation) {
+            if (generation == 0) {
+                return name;
+            }
+            int extension = name.lastIndexOf('.');
+            return name.substring(0, extension) + "." + generation + name.substring(extension);
+        }
+    }
+
+    /**
+     * Thrown when the stored contents of an entry are missing or do not match its digest.
+     */
+    public static final class CorruptEntryException extends IOException {
+        private CorruptEntryException(String message) {
+            super(message);
+        }
+    }
+}
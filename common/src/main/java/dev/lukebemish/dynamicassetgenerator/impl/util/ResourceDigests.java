@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.IoSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes streaming content digests of resources read during generation. Digests are memoized per cache and location
+ * until the cache is reset, so a resource referenced by many generators is only read and hashed once per reload.
+ */
+public final class ResourceDigests {
+    private ResourceDigests() {}
+
+    private static final Map<ResourceLocation, Map<ResourceLocation, String>> MULTI_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Digests the contents of a resource, which must have been found at the provided location within the provided
+     * context.
+     * @param context the context the resource was found in
+     * @param location the location the resource was found at
+     * @param supplier supplies the contents of the resource
+     * @return a fixed-size hex digest of the resource's contents
+     * @throws IOException if the resource could not be read
+     */
+    public static String digest(ResourceGenerationContext context, ResourceLocation location, IoSupplier<InputStream> supplier) throws IOException {
+        var cache = MULTI_CACHE.computeIfAbsent(context.getCacheName(), k -> new ConcurrentHashMap<>());
+        String existing = cache.get(location);
+        if (existing != null) {
+            return existing;
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        try (var is = supplier.get()) {
+            ByteStreams.copy(is, Funnels.asOutputStream(hasher));
+        }
+        String digest = hasher.hash().toString();
+        cache.put(location, digest);
+        return digest;
+    }
+
+    public static void reset(ResourceGenerationContext context) {
+        MULTI_CACHE.remove(context.getCacheName());
+    }
+}
@@ -5,33 +5,41 @@
 
 package dev.lukebemish.dynamicassetgenerator.impl.util;
 
+import com.google.common.hash.HashCode;
 import dev.lukebemish.dynamicassetgenerator.api.PathAwareInputStreamSource;
 import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.impl.CacheManifest;
+import dev.lukebemish.dynamicassetgenerator.impl.DigestJsonOps;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
 import dev.lukebemish.dynamicassetgenerator.impl.Timing;
 import dev.lukebemish.dynamicassetgenerator.impl.platform.Services;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.IoSupplier;
+import org.jspecify.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.function.BiFunction;
 
 public final class ResourceUtils {
     private ResourceUtils() {}
 
     public static IoSupplier<InputStream> wrapSafeData(ResourceLocation rl, PathAwareInputStreamSource source, ResourceGenerationContext context) {
+        return wrapSafeData(rl, source, context, null);
+    }
+
+    public static IoSupplier<InputStream> wrapSafeData(ResourceLocation rl, PathAwareInputStreamSource source, ResourceGenerationContext context, CacheManifest.@Nullable Builder manifest) {
         return wrapSafeData(
             rl,
             source::get,
             context,
             i -> i,
             i -> i,
-            source::createCacheKey
+            source::createCacheKey,
+            manifest
         );
     }
 
@@ -42,20 +50,38 @@ public static <T extends AutoCloseable> IoSupplier<T> wrapSafeData(
         IoFunction<T, InputStream> writer,
         IoFunction<InputStream, T> opener,
         BiFunction<ResourceLocation, ResourceGenerationContext, String> cacheKeyMaker
+    ) {
+        return wrapSafeData(rl, source, context, writer, opener, cacheKeyMaker, null);
+    }
+
+    public static <T extends AutoCloseable> IoSupplier<T> wrapSafeData(
+        ResourceLocation rl,
+        BiFunction<ResourceLocation, ResourceGenerationContext, IoSupplier<T>> source,
+        ResourceGenerationContext context,
+        IoFunction<T, InputStream> writer,
+        IoFunction<InputStream, T> opener,
+        BiFunction<ResourceLocation, ResourceGenerationContext, String> cacheKeyMaker,
+        CacheManifest.@Nullable Builder manifest
     ) {
         IoSupplier<T> supplier = null;
         Transformer<T> transformer = is -> is;
         if (DynamicAssetGenerator.getConfig().fullCache()) {
             try {
-                Path path = DynamicAssetGenerator.cache(context.getCacheName(), false).resolve(rl.getNamespace()).resolve(rl.getPath());
-                if (!Files.exists(path.getParent())) Files.createDirectories(path.getParent());
+                Path cacheDirectory = DynamicAssetGenerator.cache(context.getCacheName(), false);
+                CacheGarbageCollector.markInUse(cacheDirectory);
+                Path path = cacheDirectory.resolve(rl.getNamespace()).resolve(rl.getPath());
+                // Directories are created by the cache writer when the file is written
                 if (Files.exists(path)) {
                     supplier = () -> opener.apply(Files.newInputStream(path));
                 } else {
                     transformer = transformer.andThen(is -> {
                         try (var stream = is) {
-                            Files.copy(writer.apply(stream), path, StandardCopyOption.REPLACE_EXISTING);
-                            return opener.apply(Files.newInputStream(path));
+                            byte[] bytes;
+                            try (var written = writer.apply(stream)) {
+                                bytes = written.readAllBytes();
+                            }
+                            CacheWriter.write(path, bytes);
+                            return opener.apply(new ByteArrayInputStream(bytes));
                         } catch (IOException e) {
                             throw e;
                         } catch (Exception e) {
@@ -69,35 +95,56 @@ public static <T extends AutoCloseable> IoSupplier<T> wrapSafeData(
         } else if (DynamicAssetGenerator.getConfig().keyedCache()) {
             String partialCacheKey = cacheKeyMaker.apply(rl, context);
             if (partialCacheKey != null) {
-                String cacheKey = Services.PLATFORM.getModVersion()+":"+partialCacheKey;
-                Path keyPath = DynamicAssetGenerator.cache(context.getCacheName(), true).resolve(rl.getNamespace()).resolve(rl.getPath() + ".dynassetgen");
-                Path contentPath = DynamicAssetGenerator.cache(context.getCacheName(), true).resolve(rl.getNamespace()).resolve(rl.getPath());
+                HashCode cacheKey = HashCode.fromString(DigestJsonOps.hash(Services.PLATFORM.getModVersion()+":"+partialCacheKey));
                 try {
-                    if (!Files.exists(keyPath.getParent())) Files.createDirectories(keyPath.getParent());
-                    String existingKey = null;
-                    if (Files.exists(keyPath)) {
-                        existingKey = Files.readString(keyPath, StandardCharsets.UTF_8);
+                    KeyedCacheStore store = KeyedCacheStore.of(context.getCacheName());
+                    KeyedCacheStore.Entry existing = store.find(rl, cacheKey);
+                    if (manifest != null) {
+                        manifest.planned(rl, cacheKey, existing != null);
                     }
-                    if (existingKey != null && existingKey.equals(cacheKey)) {
-                        supplier = () -> opener.apply(Files.newInputStream(contentPath));
+                    Transformer<T> storing = is -> {
+                        try (var stream = is) {
+                            byte[] bytes;
+                            try (var written = writer.apply(stream)) {
+                                bytes = written.readAllBytes();
+                            }
+                            CacheWriter.write(store, rl, cacheKey, bytes);
+                            if (manifest != null) {
+                                manifest.stored(rl);
+                            }
+                            return opener.apply(new ByteArrayInputStream(bytes));
+                        } catch (IOException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            throw new IOException(e);
+                        }
+                    };
+                    if (existing != null) {
+                        supplier = () -> {
+                            try {
+                                return opener.apply(store.open(existing));
+                            } catch (KeyedCacheStore.CorruptEntryException e) {
+                                DynamicAssetGenerator.LOGGER.warn("Cached resource {} was corrupt; regenerating it...", rl, e);
+                                IoSupplier<T> regenerated = source.apply(rl, context);
+                                if (regenerated == null) {
+                                    throw new IOException("Could not regenerate corrupt cached resource " + rl);
+                                }
+                                return storing.transform(regenerated.get());
+                            }
+                        };
                     } else {
                         supplier = source.apply(rl, context);
-                        transformer = transformer.andThen(is -> {
-                            try (var stream = is) {
-                                Files.copy(writer.apply(stream), contentPath, StandardCopyOption.REPLACE_EXISTING);
-                                Files.writeString(keyPath, cacheKey, StandardCharsets.UTF_8);
-                                return opener.apply(Files.newInputStream(contentPath));
-                            } catch (IOException e) {
-                                throw e;
-                            } catch (Exception e) {
-                                throw new IOException(e);
-                            }
-                        });
+                        transformer = transformer.andThen(storing);
                     }
                 } catch (IOException e) {
                     DynamicAssetGenerator.LOGGER.error("Could not cache resource {}...", rl, e);
                     supplier = source.apply(rl, context);
+                    if (manifest != null) {
+                        manifest.invalidate();
+                    }
                 }
+            } else if (manifest != null) {
+                manifest.invalidate();
             }
         }
         if (supplier == null) {
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs per-pixel work over an image split into bands of whole rows, so each task walks contiguous memory in a
+ * row-major buffer. Images with no more pixels than the configured threshold are processed serially on the calling
+ * thread, as for most textures the cost of forking outweighs the work itself; larger images are split into a few bands
+ * per thread of the common pool.
+ */
+public final class RowBands {
+    private RowBands() {}
+
+    // The cost of a row can vary widely, as in ForegroundExtractor where only pixels missing from the background palette
+    // need searching; a few bands per thread let a thread which finishes early take another band instead of idling
+    private static final int BANDS_PER_THREAD = 4;
+
+    @FunctionalInterface
+    public interface BandAction {
+        /**
+         * Processes a band of rows.
+         * @param fromY the first row of the band, inclusive
+         * @param toY the last row of the band, exclusive
+         */
+        void run(int fromY, int toY);
+    }
+
+    @FunctionalInterface
+    public interface BandFunction<T> {
+        /**
+         * Processes a band of rows, producing a result for it.
+         * @param fromY the first row of the band, inclusive
+         * @param toY the last row of the band, exclusive
+         * @return the result of processing the band
+         */
+        T apply(int fromY, int toY);
+    }
+
+    /**
+     * The threshold defaults to 4096 pixels, or 64x64: block and item textures are usually 16x16 or 32x32, and forking
+     * tasks for so few pixels costs more than the work itself, while larger images are few but dominate the time spent.
+     * @return whether an image of the given size is large enough to be processed in parallel
+     */
+    public static boolean parallel(int width, int height) {
+        return (long) width * height > DynamicAssetGenerator.getConfig().parallelPixelThreshold();
+    }
+
+    /**
+     * Processes every row of an image, in bands which may run in parallel. Rows within a band are processed in order.
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param action the action to run for each band; must be thread-safe
+     */
+    public static void forEachBand(int width, int height, BandAction action) {
+        forEachBand(height, parallel(width, height), action);
+    }
+
+    static void forEachBand(int height, boolean parallel, BandAction action) {
+        if (height <= 0) {
+            return;
+        }
+        if (!parallel) {
+            action.run(0, height);
+            return;
+        }
+        InputRecorder.forked();
+        int rowsPerBand = rowsPerBand(height);
+        IntStream.range(0, (height + rowsPerBand - 1) / rowsPerBand).parallel().forEach(band -> {
+            int fromY = band * rowsPerBand;
+            action.run(fromY, Math.min(height, fromY + rowsPerBand));
+        });
+    }
+
+    /**
+     * Processes every row of an image, in bands which may run in parallel, and collects the result of each band. Lets
+     * bands gather what they find without sharing a collection between threads; results can be merged once every band
+     * is done.
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param function the function to run for each band; must be thread-safe
+     * @return the result of each band, in order of their rows
+     */
+    public static <T> List<T> mapBands(int width, int height, BandFunction<T> function) {
+        if (height <= 0) {
+            return List.of();
+        }
+        if (!parallel(width, height)) {
+            return List.of(function.apply(0, height));
+        }
+        InputRecorder.forked();
+        int rowsPerBand = rowsPerBand(height);
+        return IntStream.range(0, (height + rowsPerBand - 1) / rowsPerBand).parallel().mapToObj(band -> {
+            int fromY = band * rowsPerBand;
+            return function.apply(fromY, Math.min(height, fromY + rowsPerBand));
+        }).toList();
+    }
+
+    private static int rowsPerBand(int height) {
+        int bands = Math.min(height, ForkJoinPool.getCommonPoolParallelism() * BANDS_PER_THREAD);
+        return (height + bands - 1) / bands;
+    }
+
+    /**
+     * Processes every row of an image, in bands which may run in parallel.
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param action the action to run for each row; must be thread-safe
+     */
+    public static void forEachRow(int width, int height, IntConsumer action) {
+        forEachBand(width, height, (fromY, toY) -> {
+            for (int y = fromY; y < toY; y++) {
+                action.accept(y);
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator;
+
+import java.util.Arrays;
+
+/**
+ * Times repeated runs of a piece of work for the tests tagged {@code benchmark}, which are run by the
+ * {@code benchmark} task rather than with the regular tests.
+ */
+public final class Timing {
+    private Timing() {}
+
+    public static final String TAG = "benchmark";
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 30;
+
+    /**
+     * Runs the work enough times for it to be compiled, then times further runs.
+     * @param work the work to time
+     * @return the median time of a run, in milliseconds
+     */
+    public static double median(Runnable work) {
+        for (int i = 0; i < WARMUP; i++) {
+            work.run();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            work.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2] / 1_000_000d;
+    }
+
+    /**
+     * Prints a comparison between two ways of doing the same work.
+     * @param label what was timed
+     * @param baseline the name of the first way
+     * @param baselineMillis the time taken the first way
+     * @param candidate the name of the second way
+     * @param candidateMillis the time taken the second way
+     */
+    public static void report(String label, String baseline, double baselineMillis, String candidate, double candidateMillis) {
+        System.out.printf("%-40s %s %.3f ms, %s %.3f ms (%.2fx)%n", label, baseline, baselineMillis, candidate, candidateMillis, baselineMillis / candidateMillis);
+    }
+}
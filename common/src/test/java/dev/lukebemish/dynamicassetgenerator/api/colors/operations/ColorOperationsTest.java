@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.colors.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the row kernels of {@link ColorOperations} give the same results as applying each operation point by
+ * point.
+ */
+class ColorOperationsTest {
+    private static final int LENGTH = 1024;
+    private static final int OFFSET = 3;
+    // Channel values at and next to the edges, where rounding and saturation differ most easily
+    private static final int[] EDGES = {0, 1, 127, 128, 254, 255};
+
+    @Test
+    void mask() {
+        check(ColorOperations.MASK, 2);
+    }
+
+    @Test
+    void add() {
+        for (int images = 1; images <= 4; images++) {
+            check(ColorOperations.ADD, images);
+        }
+    }
+
+    @Test
+    void multiply() {
+        for (int images = 1; images <= 4; images++) {
+            check(ColorOperations.MULTIPLY, images);
+        }
+    }
+
+    @Test
+    void overlay() {
+        for (int images = 1; images <= 4; images++) {
+            check(ColorOperations.OVERLAY, images);
+        }
+    }
+
+    private static void check(PointwiseOperation<Integer> operation, int images) {
+        IntPointwiseOperation op = (IntPointwiseOperation) operation;
+        Random random = new Random(images);
+        int[][] inputs = new int[images][LENGTH];
+        for (int[] layer : inputs) {
+            for (int i = 0; i < LENGTH; i++) {
+                int color = random.nextInt();
+                switch (random.nextInt(4)) {
+                    case 0 -> color &= 0x00FFFFFF;
+                    case 1 -> color |= 0xFF000000;
+                    case 2 -> color = edge(random);
+                    default -> {}
+                }
+                layer[i] = color;
+            }
+        }
+        compare(op, inputs);
+
+        // Every pair of edge colors, so that each alpha of 0 and 255 meets every other
+        int[][] pairs = new int[images][EDGES.length * EDGES.length];
+        for (int a = 0; a < EDGES.length; a++) {
+            for (int b = 0; b < EDGES.length; b++) {
+                int index = a * EDGES.length + b;
+                for (int k = 0; k < images; k++) {
+                    int alpha = EDGES[k % 2 == 0 ? a : b];
+                    int channel = EDGES[(k % 2 == 0 ? b : a)];
+                    pairs[k][index] = alpha << 24 | channel << 16 | EDGES[EDGES.length - 1 - a] << 8 | EDGES[EDGES.length - 1 - b];
+                }
+            }
+        }
+        compare(op, pairs);
+    }
+
+    private static void compare(IntPointwiseOperation op, int[][] inputs) {
+        int length = inputs[0].length;
+        int[] out = new int[length + OFFSET];
+        op.applyRow(inputs, out, OFFSET, length);
+
+        int[] colors = new int[inputs.length];
+        boolean[] inBounds = new boolean[inputs.length];
+        Arrays.fill(inBounds, true);
+        for (int i = 0; i < length; i++) {
+            for (int k = 0; k < inputs.length; k++) {
+                colors[k] = inputs[k][i];
+            }
+            int expected = op.applyAsInt(colors, inBounds);
+            int index = i;
+            assertEquals(expected, out[OFFSET + i], () -> "Row result differs at " + index + " for inputs " + hex(colors));
+        }
+    }
+
+    private static int edge(Random random) {
+        int color = 0;
+        for (int c = 0; c < 4; c++) {
+            color = color << 8 | EDGES[random.nextInt(EDGES.length)];
+        }
+        return color;
+    }
+
+    private static String hex(int[] colors) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int k = 0; k < colors.length; k++) {
+            if (k > 0) builder.append(", ");
+            builder.append(String.format("%08X", colors[k]));
+        }
+        return builder.append(']').toString();
+    }
+}
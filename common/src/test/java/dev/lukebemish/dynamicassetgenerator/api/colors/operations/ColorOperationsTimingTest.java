@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.api.colors.operations;
+
+import dev.lukebemish.dynamicassetgenerator.Timing;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Compares the time taken by the row kernels of {@link ColorOperations} with applying each operation point by point,
+ * over a 512x512 image such as a high resolution resource pack texture.
+ */
+@Tag(Timing.TAG)
+class ColorOperationsTimingTest {
+    private static final int SIZE = 512;
+    private static final int IMAGES = 2;
+
+    @Test
+    void compare() {
+        Random random = new Random(0);
+        int[][][] rows = new int[SIZE][IMAGES][SIZE];
+        for (int[][] row : rows) {
+            for (int[] layer : row) {
+                for (int i = 0; i < SIZE; i++) {
+                    layer[i] = random.nextInt();
+                }
+            }
+        }
+        time("mask", ColorOperations.MASK, rows);
+        time("add", ColorOperations.ADD, rows);
+        time("multiply", ColorOperations.MULTIPLY, rows);
+        time("overlay", ColorOperations.OVERLAY, rows);
+    }
+
+    private static void time(String name, PointwiseOperation<Integer> operation, int[][][] rows) {
+        IntPointwiseOperation op = (IntPointwiseOperation) operation;
+        int[] pointwise = new int[SIZE * SIZE];
+        int[] row = new int[SIZE * SIZE];
+        double pointwiseMillis = Timing.median(() -> {
+            int[] colors = new int[IMAGES];
+            boolean[] inBounds = new boolean[IMAGES];
+            Arrays.fill(inBounds, true);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    for (int k = 0; k < IMAGES; k++) {
+                        colors[k] = rows[y][k][x];
+                    }
+                    pointwise[y * SIZE + x] = op.applyAsInt(colors, inBounds);
+                }
+            }
+        });
+        double rowMillis = Timing.median(() -> {
+            for (int y = 0; y < SIZE; y++) {
+                op.applyRow(rows[y], row, y * SIZE, SIZE);
+            }
+        });
+        // Also keeps either loop from being optimized away
+        assertArrayEquals(pointwise, row);
+        Timing.report(name + " " + SIZE + "x" + SIZE, "pointwise", pointwiseMillis, "row", rowMillis);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import dev.lukebemish.dynamicassetgenerator.api.cache.CacheMetaCodec;
+import dev.lukebemish.dynamicassetgenerator.api.cache.DataConsumer;
+import dev.lukebemish.dynamicassetgenerator.api.client.generators.TexSourceDataHolder;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that memoized digests are shared between outputs which attach equal data, and are not reused once the data
+ * changes.
+ */
+class DigestJsonOpsTest {
+    private static final TexSourceDataHolder.Token<String> TOKEN = new TexSourceDataHolder.Token<>();
+    private static final Map<String, Integer> ENCODES = new ConcurrentHashMap<>();
+
+    private static final Codec<Node> CODEC = DigestJsonOps.merkle(CacheMetaCodec.of(new Codec<Node>() {
+        @Override
+        public <T> DataResult<Pair<Node, T>> decode(DynamicOps<T> ops, T input) {
+            return Node.CODEC.decode(ops, input);
+        }
+
+        @Override
+        public <T> DataResult<T> encode(Node input, DynamicOps<T> ops, T prefix) {
+            ENCODES.merge(input.name(), 1, Integer::sum);
+            return Node.CODEC.encode(input, ops, prefix);
+        }
+    }, List.of(CacheMetaCodec.SingleCacheType.of(new DataConsumer<TexSourceDataHolder, Node>() {
+        @Override
+        public <T> DataResult<T> encode(DynamicOps<T> ops, TexSourceDataHolder data, Node object) {
+            return DataResult.success(ops.createString(String.valueOf(data.get(TOKEN))));
+        }
+    }, "data", TexSourceDataHolder.class))));
+
+    private static final ResourceGenerationContext CONTEXT = () -> new ResourceLocation("dynamic_asset_generator", "test");
+
+    private record Node(String name, List<Node> children) {
+        private static final Codec<Node> CODEC = RecordCodecBuilder.create(i -> i.group(
+            Codec.STRING.fieldOf("name").forGetter(Node::name),
+            DigestJsonOpsTest.CODEC.listOf().fieldOf("children").forGetter(Node::children)
+        ).apply(i, Node::new));
+    }
+
+    @AfterEach
+    void clear() {
+        DigestJsonOps.clearMemo(CONTEXT);
+        ENCODES.clear();
+    }
+
+    @Test
+    void sharedSubtreeIsDigestedOnce() {
+        Node shared = new Node("shared", List.of(new Node("leaf", List.of())));
+        Node first = new Node("first", List.of(shared));
+        Node second = new Node("second", List.of(shared));
+
+        String firstDigest = digest(first, holder("value"));
+        String secondDigest = digest(second, holder("value"));
+
+        assertNotEquals(firstDigest, secondDigest);
+        assertEquals(1, encodes("shared"));
+        assertEquals(1, encodes("leaf"));
+    }
+
+    @Test
+    void changedDataIsDigestedAgain() {
+        Node node = new Node("node", List.of());
+        TexSourceDataHolder holder = holder("before");
+
+        String before = digest(node, holder);
+        holder.put(TOKEN, "after");
+        String after = digest(node, holder);
+
+        assertNotEquals(before, after);
+        assertEquals(2, encodes("node"));
+        assertEquals(before, digest(node, holder("before")));
+        assertEquals(2, encodes("node"));
+    }
+
+    private static int encodes(String name) {
+        return ENCODES.getOrDefault(name, 0);
+    }
+
+    private static TexSourceDataHolder holder(String value) {
+        TexSourceDataHolder holder = new TexSourceDataHolder();
+        holder.put(TOKEN, value);
+        return holder;
+    }
+
+    private static String digest(Node node, TexSourceDataHolder holder) {
+        DigestJsonOps ops = new DigestJsonOps(CONTEXT);
+        ops.putData(TexSourceDataHolder.class, holder);
+        return ops.digest(CODEC, node).result().orElseThrow();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.lukebemish.dynamicassetgenerator.Timing;
+import dev.lukebemish.dynamicassetgenerator.api.ResourceGenerationContext;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares computing the cache keys of a sprite provider's sources serially and in parallel, as sprite preparation
+ * does for each source before looking it up in the disk cache. Sources share a small set of base trees, as generated
+ * sprites usually build on a few common textures.
+ */
+@Tag(Timing.TAG)
+class SpriteKeyTimingTest {
+    private static final int SPRITES = 8192;
+    private static final int BASES = 64;
+    private static final int DEPTH = 8;
+
+    private static final Codec<Node> CODEC = DigestJsonOps.merkle(new Codec<Node>() {
+        @Override
+        public <T> DataResult<Pair<Node, T>> decode(DynamicOps<T> ops, T input) {
+            return Node.CODEC.decode(ops, input);
+        }
+
+        @Override
+        public <T> DataResult<T> encode(Node input, DynamicOps<T> ops, T prefix) {
+            return Node.CODEC.encode(input, ops, prefix);
+        }
+    });
+
+    private static final ResourceGenerationContext CONTEXT = () -> new ResourceLocation("dynamic_asset_generator", "timing");
+
+    private record Node(String name, List<Node> children) {
+        private static final Codec<Node> CODEC = RecordCodecBuilder.create(i -> i.group(
+            Codec.STRING.fieldOf("name").forGetter(Node::name),
+            SpriteKeyTimingTest.CODEC.listOf().fieldOf("children").forGetter(Node::children)
+        ).apply(i, Node::new));
+    }
+
+    @Test
+    void compare() {
+        List<Node> bases = new ArrayList<>();
+        for (int b = 0; b < BASES; b++) {
+            Node base = new Node("leaf_" + b, List.of());
+            for (int d = 0; d < DEPTH; d++) {
+                base = new Node("layer_" + b + "_" + d, List.of(base, new Node("palette_" + d, List.of())));
+            }
+            bases.add(base);
+        }
+        List<Node> sprites = new ArrayList<>();
+        for (int s = 0; s < SPRITES; s++) {
+            sprites.add(new Node("sprite_" + s, List.of(bases.get(s % BASES), new Node("overlay_" + s, List.of()))));
+        }
+
+        double serialMillis = Timing.median(() -> keys(sprites, false));
+        double parallelMillis = Timing.median(() -> keys(sprites, true));
+        assertEquals(keys(sprites, false), keys(sprites, true));
+        Timing.report(SPRITES + " sprite keys", "serial", serialMillis, "parallel", parallelMillis);
+    }
+
+    // Each run starts from an empty memo, as the first preparation after a reload does
+    private static List<String> keys(List<Node> sprites, boolean parallel) {
+        DigestJsonOps.clearMemo(CONTEXT);
+        var stream = parallel ? sprites.parallelStream() : sprites.stream();
+        return stream.map(sprite -> {
+            DigestJsonOps ops = new DigestJsonOps(CONTEXT);
+            ops.putData(ResourceCachingData.class, new ResourceCachingData(new ResourceLocation("dynamic_asset_generator", "textures/" + sprite.name() + ".png"), CONTEXT));
+            return ops.digest(CODEC, sprite).result().orElseThrow();
+        }).toList();
+    }
+}
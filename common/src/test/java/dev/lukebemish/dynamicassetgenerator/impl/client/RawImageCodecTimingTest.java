@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.client;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import dev.lukebemish.dynamicassetgenerator.Timing;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares loading cached sprites from PNG with loading them from raw pixel data, plain and deflated, as on a warm
+ * start. Each run loads 512x512 pixels in total, as a single image or as many small ones. Raw data is read into newly
+ * allocated native memory, as {@link RawImageCodec#read} does for the pixels of a new image.
+ */
+@Tag(Timing.TAG)
+class RawImageCodecTimingTest {
+    private static final int PIXELS = 512 * 512;
+
+    @Test
+    void compare() throws IOException {
+        for (int size : new int[] {16, 64, 512}) {
+            time(size);
+        }
+    }
+
+    private static void time(int size) throws IOException {
+        int count = PIXELS / (size * size);
+        Random random = new Random(size);
+        BufferedImage source = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        byte[] data = new byte[size * size * 4];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                // A noisy gradient, so neither format compresses unrealistically well
+                int r = (x * 255 / size + random.nextInt(16)) & 0xFF;
+                int g = (y * 255 / size + random.nextInt(16)) & 0xFF;
+                int b = random.nextInt(64);
+                int a = random.nextInt(8) == 0 ? 0 : 0xFF;
+                source.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+                int i = (y * size + x) * 4;
+                data[i] = (byte) r;
+                data[i + 1] = (byte) g;
+                data[i + 2] = (byte) b;
+                data[i + 3] = (byte) a;
+            }
+        }
+        ByteArrayOutputStream pngOut = new ByteArrayOutputStream();
+        ImageIO.write(source, "png", pngOut);
+        byte[] png = pngOut.toByteArray();
+        ByteArrayOutputStream rawOut = new ByteArrayOutputStream();
+        RawImageCodec.writePixels(rawOut, data, false);
+        byte[] raw = rawOut.toByteArray();
+        ByteArrayOutputStream deflatedOut = new ByteArrayOutputStream();
+        RawImageCodec.writePixels(deflatedOut, data, true);
+        byte[] deflated = deflatedOut.toByteArray();
+
+        try (NativeImage image = NativeImage.read(new ByteArrayInputStream(png))) {
+            assertEquals(size, image.getWidth());
+        }
+
+        double pngMillis = Timing.median(() -> {
+            for (int n = 0; n < count; n++) {
+                try (NativeImage image = NativeImage.read(new ByteArrayInputStream(png))) {
+                    image.getWidth();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        double rawMillis = Timing.median(() -> {
+            for (int n = 0; n < count; n++) {
+                load(new ByteArrayInputStream(raw), data.length);
+            }
+        });
+        double deflatedMillis = Timing.median(() -> {
+            for (int n = 0; n < count; n++) {
+                load(new InflaterInputStream(new ByteArrayInputStream(deflated)), data.length);
+            }
+        });
+        String label = count + " x " + size + "x" + size;
+        Timing.report(label + " (" + png.length + " B png)", "png", pngMillis, "raw", rawMillis);
+        Timing.report(label + " (" + deflated.length + " B deflated)", "png", pngMillis, "deflated", deflatedMillis);
+    }
+
+    private static void load(InputStream payload, int size) {
+        ByteBuffer pixels = MemoryUtil.memAlloc(size);
+        try {
+            RawImageCodec.readPixels(payload, pixels);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            MemoryUtil.memFree(pixels);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023 Luke Bemish and contributors
+ * SPDX-License-Identifier: LGPL-3.0-or-later
+ */
+
+package dev.lukebemish.dynamicassetgenerator.impl.util;
+
+import dev.lukebemish.dynamicassetgenerator.Timing;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.ColorOperations;
+import dev.lukebemish.dynamicassetgenerator.api.colors.operations.IntPointwiseOperation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Compares processing images of increasing size in row bands serially and in parallel, to show where the parallel
+ * pixel threshold should lie.
+ */
+@Tag(Timing.TAG)
+class RowBandsTimingTest {
+    private static final int IMAGES = 2;
+
+    @Test
+    void crossover() {
+        for (int size = 16; size <= 1024; size *= 2) {
+            time(size);
+        }
+    }
+
+    private static void time(int size) {
+        IntPointwiseOperation op = (IntPointwiseOperation) ColorOperations.MULTIPLY;
+        Random random = new Random(size);
+        int[][][] rows = new int[size][IMAGES][size];
+        for (int[][] row : rows) {
+            for (int[] layer : row) {
+                for (int i = 0; i < size; i++) {
+                    layer[i] = random.nextInt();
+                }
+            }
+        }
+        int[] serial = new int[size * size];
+        int[] parallel = new int[size * size];
+        double serialMillis = Timing.median(() -> RowBands.forEachBand(size, false, (fromY, toY) -> apply(op, rows, serial, size, fromY, toY)));
+        double parallelMillis = Timing.median(() -> RowBands.forEachBand(size, true, (fromY, toY) -> apply(op, rows, parallel, size, fromY, toY)));
+        assertArrayEquals(serial, parallel);
+        Timing.report(size + "x" + size, "serial", serialMillis, "parallel", parallelMillis);
+    }
+
+    private static void apply(IntPointwiseOperation op, int[][][] rows, int[] out, int size, int fromY, int toY) {
+        for (int y = fromY; y < toY; y++) {
+            op.applyRow(rows[y], out, y * size, size);
+        }
+    }
+}
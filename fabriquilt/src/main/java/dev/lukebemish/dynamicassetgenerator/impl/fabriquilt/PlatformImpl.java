@@ -8,8 +8,11 @@
 import com.google.auto.service.AutoService;
 import dev.lukebemish.dynamicassetgenerator.impl.DynamicAssetGenerator;
 import dev.lukebemish.dynamicassetgenerator.impl.platform.services.Platform;
+import net.fabricmc.loader.api.FabricLoader;
 
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 @AutoService(Platform.class)
 public class PlatformImpl implements Platform {
@@ -29,4 +32,11 @@ public String getModVersion() {
         return MOD_VERSION;
     }
 
+    @Override
+    public Map<String, String> getModVersions() {
+        Map<String, String> versions = new HashMap<>();
+        FabricLoader.getInstance().getAllMods().forEach(mod -> versions.put(mod.getMetadata().getId(), mod.getMetadata().getVersion().getFriendlyString()));
+        return versions;
+    }
+
 }
@@ -12,6 +12,8 @@
 import net.neoforged.fml.loading.FMLPaths;
 
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 @AutoService(Platform.class)
 public class PlatformImpl implements Platform {
@@ -31,4 +33,11 @@ public String getModVersion() {
         return MOD_VERSION;
     }
 
+    @Override
+    public Map<String, String> getModVersions() {
+        Map<String, String> versions = new HashMap<>();
+        ModList.get().getMods().forEach(mod -> versions.put(mod.getModId(), mod.getVersion().toString()));
+        return versions;
+    }
+
 }